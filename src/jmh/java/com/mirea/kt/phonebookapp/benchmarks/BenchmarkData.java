@@ -0,0 +1,32 @@
+package com.mirea.kt.phonebookapp.benchmarks;
+
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+
+import java.util.ArrayList;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Contact contact(int id, int numbers) {
+        Contact contact = new Contact();
+        contact.setId(id);
+        contact.setName("Contact " + id);
+        contact.setImageName("contact" + id + ".png");
+        contact.setNumbers(new ArrayList<>(numbers));
+
+        for (int i = 0; i < numbers; i++) {
+            PhoneNumber number = new PhoneNumber();
+            number.setId(id * numbers + i);
+            number.setNumber(String.format("8999%07d", id * numbers + i));
+            number.setNumberType(NumberType.values()[i % NumberType.values().length]);
+            number.setContact(contact);
+            contact.getNumbers().add(number);
+        }
+
+        return contact;
+    }
+}
@@ -0,0 +1,79 @@
+package com.mirea.kt.phonebookapp.benchmarks;
+
+import com.mirea.kt.phonebookapp.dto.ContactDTO;
+import com.mirea.kt.phonebookapp.dto.PhoneNumberDTO;
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.util.mappers.ContactMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContactMappingBenchmark {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final ContactMapper contactMapper = new ContactMapper();
+
+    private Contact contact;
+    private ContactDTO contactDTO;
+
+    @Setup
+    public void setUp() {
+        contact = BenchmarkData.contact(1, 3);
+        contactDTO = contactMapper.toContactDTO(contact);
+    }
+
+    @Benchmark
+    public ContactDTO contactMapperToDTO() {
+        return contactMapper.toContactDTO(contact);
+    }
+
+    @Benchmark
+    public Contact contactMapperFromDTO() {
+        return contactMapper.toContact(contactDTO);
+    }
+
+    // ContactController.convertToContactDTO as it was with ModelMapper
+    @Benchmark
+    public ContactDTO modelMapperToDTO() {
+        List<PhoneNumberDTO> numbersDTO = new ArrayList<>();
+        for (PhoneNumber number : contact.getNumbers()) {
+            numbersDTO.add(modelMapper.map(number, PhoneNumberDTO.class));
+        }
+
+        ContactDTO result = modelMapper.map(contact, ContactDTO.class);
+        result.setNumbers(numbersDTO);
+        return result;
+    }
+
+    // ContactController.convertToContact as it was with ModelMapper
+    @Benchmark
+    public Contact modelMapperFromDTO() {
+        List<PhoneNumber> numbers = new ArrayList<>();
+        for (PhoneNumberDTO number : contactDTO.getNumbers()) {
+            numbers.add(modelMapper.map(number, PhoneNumber.class));
+        }
+
+        Contact result = modelMapper.map(contactDTO, Contact.class);
+        result.setNumbers(numbers);
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mirea.kt.phonebookapp.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mirea.kt.phonebookapp.dto.ContactDTO;
+import com.mirea.kt.phonebookapp.util.mappers.ContactMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContactSerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int contacts;
+
+    private ObjectMapper objectMapper;
+    private Map<Integer, ContactDTO> map;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        ContactMapper contactMapper = new ContactMapper();
+        map = new HashMap<>();
+        for (int i = 1; i <= contacts; i++) {
+            map.put(i, contactMapper.toContactDTO(BenchmarkData.contact(i, 2)));
+        }
+    }
+
+    @Benchmark
+    public void serializeContacts() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), map);
+    }
+}
@@ -0,0 +1,72 @@
+package com.mirea.kt.phonebookapp.benchmarks;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.mirea.kt.phonebookapp.security.JWTUtil;
+import com.mirea.kt.phonebookapp.security.RevokedTokens;
+import com.mirea.kt.phonebookapp.security.TokenPair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTBenchmark {
+
+    private static final String SECRET = "SECRET_KEY";
+
+    private JWTUtil jwtUtil;
+    private JWTVerifier sharedVerifier;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        // Checking revocation only reads the in-memory set, the repository is not used
+        jwtUtil = new JWTUtil(SECRET, 10_000, 15, 30, new RevokedTokens(null));
+        sharedVerifier = JWT.require(Algorithm.HMAC256(SECRET))
+                .withSubject("User details")
+                .withIssuer("PhonebookApp")
+                .build();
+        token = jwtUtil.generateTokens(1, "benchmark").getAccessToken();
+    }
+
+    @Benchmark
+    public TokenPair generateTokens() {
+        return jwtUtil.generateTokens(1, "benchmark");
+    }
+
+    @Benchmark
+    public String verifyCachedToken() {
+        return jwtUtil.validateAccessToken(token).getLogin();
+    }
+
+    @Benchmark
+    public String verifyWithSharedVerifier() {
+        return sharedVerifier.verify(token).getClaim("login").asString();
+    }
+
+    // Verification as JWTUtil did it before the verifier was shared: a new Algorithm and JWTVerifier per call
+    @Benchmark
+    public String verifyWithNewVerifier() {
+        JWTVerifier verifier = JWT.require(Algorithm.HMAC256(SECRET))
+                .withSubject("User details")
+                .withIssuer("PhonebookApp")
+                .build();
+
+        return verifier.verify(token).getClaim("login").asString();
+    }
+}
@@ -1,12 +1,13 @@
 package com.mirea.kt.phonebookapp.config;
 
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.mirea.kt.phonebookapp.security.AuthenticatedUser;
 import com.mirea.kt.phonebookapp.security.JWTUtil;
-import com.mirea.kt.phonebookapp.services.UserDetailsService;
+import com.mirea.kt.phonebookapp.security.TokenClaims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -15,17 +16,17 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
 
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class JWTFilter extends OncePerRequestFilter {
 
     private final JWTUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
 
     @Autowired
-    public JWTFilter(JWTUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JWTFilter(JWTUtil jwtUtil) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
     }
 
     @Override
@@ -40,12 +41,12 @@ public class JWTFilter extends OncePerRequestFilter {
                         "Invalid JWT Token is Bearer Header");
             } else {
                 try {
-                    String username = jwtUtil.validateTokenAndRetrieveClaim(jwt);
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    // Access tokens are short-lived and checked against revoked ones, so the user is not loaded
+                    TokenClaims claims = jwtUtil.validateAccessToken(jwt);
 
                     UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(userDetails, userDetails.getPassword(),
-                                    userDetails.getAuthorities());
+                            new UsernamePasswordAuthenticationToken(
+                                    new AuthenticatedUser(claims.getUserId(), claims.getLogin()), null, List.of());
 
                     if (SecurityContextHolder.getContext().getAuthentication() == null) {
                         SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -0,0 +1,29 @@
+package com.mirea.kt.phonebookapp.config;
+
+import com.mirea.kt.phonebookapp.services.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the login filter once the servlet stack is up. The reactive stack neither registers users nor checks
+ * logins, so it does not read every login on startup.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class LoginFilterLoader {
+
+    private final UserService userService;
+
+    @Autowired
+    public LoginFilterLoader(UserService userService) {
+        this.userService = userService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLoginFilter() {
+        userService.loadLoginFilter();
+    }
+}
@@ -0,0 +1,61 @@
+package com.mirea.kt.phonebookapp.config;
+
+import com.mirea.kt.phonebookapp.security.BoundedPasswordEncoder;
+import com.mirea.kt.phonebookapp.security.RevokedTokens;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters that are not bound by Spring Boot itself. Request latency (http.server.requests), the connection
+ * pool (hikaricp.*) and Hibernate statistics (hibernate.*) come from auto-configuration; caches are bound
+ * by the services that own them.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    /**
+     * Read from the encoder's counters at scrape time, so hashing itself does no more than before.
+     */
+    @Bean
+    public MeterBinder passwordEncoderMetrics(BoundedPasswordEncoder passwordEncoder) {
+        return registry -> {
+            FunctionTimer.builder("phonebook.password.hash", passwordEncoder,
+                            BoundedPasswordEncoder::getHashCount, BoundedPasswordEncoder::getHashNanos,
+                            TimeUnit.NANOSECONDS)
+                    .description("BCrypt hashes and checks, not counting the time in queue")
+                    .register(registry);
+            FunctionTimer.builder("phonebook.password.queue.wait", passwordEncoder,
+                            BoundedPasswordEncoder::getHashCount, BoundedPasswordEncoder::getQueueWaitNanos,
+                            TimeUnit.NANOSECONDS)
+                    .description("Time hashes waited for a free encoder thread")
+                    .register(registry);
+            FunctionCounter.builder("phonebook.password.rejected", passwordEncoder,
+                            BoundedPasswordEncoder::getRejectedCount)
+                    .description("Hashes refused with 503 because the queue was full")
+                    .register(registry);
+            Gauge.builder("phonebook.password.queue.size", passwordEncoder, BoundedPasswordEncoder::getQueueSize)
+                    .description("Hashes waiting for a free encoder thread")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder revokedTokensMetrics(RevokedTokens revokedTokens) {
+        return registry -> Gauge.builder("phonebook.jwt.revoked", revokedTokens, RevokedTokens::size)
+                .description("Revoked tokens that have not expired yet")
+                .register(registry);
+    }
+}
@@ -0,0 +1,31 @@
+package com.mirea.kt.phonebookapp.config;
+
+import com.mirea.kt.phonebookapp.security.BoundedPasswordEncoder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PasswordEncoderConfig {
+
+    private final int strength;
+    private final int threads;
+    private final int queueSize;
+
+    @Autowired
+    public PasswordEncoderConfig(@Value("${password_bcrypt_strength:10}") int strength,
+                                 @Value("${password_encoder_threads:0}") int threads,
+                                 @Value("${password_encoder_queue_size:64}") int queueSize) {
+        this.strength = strength;
+        this.threads = threads;
+        this.queueSize = queueSize;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder() {
+        // 0 means one thread per core: BCrypt is pure CPU, more threads only add queueing inside the OS
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(strength, poolSize, queueSize);
+    }
+}
@@ -0,0 +1,78 @@
+package com.mirea.kt.phonebookapp.config;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts SQL statements, entity loads and collection fetches made on the current thread, so a request
+ * can report what it cost the database (see {@link QueryMetricsInterceptor}). Hibernate's own statistics
+ * only have totals for the whole application. Counting is a thread-local increment.
+ */
+@Component
+public class QueryCounter implements HibernatePropertiesCustomizer, StatementInspector, Integrator {
+
+    private static final int STATEMENTS = 0;
+    private static final int ENTITY_LOADS = 1;
+    private static final int COLLECTION_FETCHES = 2;
+
+    private final ThreadLocal<long[]> counts = ThreadLocal.withInitial(() -> new long[3]);
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+        hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(this));
+    }
+
+    @Override
+    public String inspect(String sql) {
+        counts.get()[STATEMENTS]++;
+        return sql;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        EventListenerRegistry listeners = serviceRegistry.getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_LOAD,
+                (PostLoadEventListener) event -> counts.get()[ENTITY_LOADS]++);
+        listeners.appendListeners(EventType.INIT_COLLECTION,
+                (InitializeCollectionEventListener) event -> counts.get()[COLLECTION_FETCHES]++);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    public void reset() {
+        Arrays.fill(counts.get(), 0);
+    }
+
+    public long getStatements() {
+        return counts.get()[STATEMENTS];
+    }
+
+    public long getEntityLoads() {
+        return counts.get()[ENTITY_LOADS];
+    }
+
+    public long getCollectionFetches() {
+        return counts.get()[COLLECTION_FETCHES];
+    }
+}
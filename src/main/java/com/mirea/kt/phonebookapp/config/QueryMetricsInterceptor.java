@@ -0,0 +1,50 @@
+package com.mirea.kt.phonebookapp.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Records the statements, entity loads and collection fetches of each request, tagged like
+ * http.server.requests with the method and the uri pattern. Work done off the request thread,
+ * e.g. while streaming a response body, is not counted.
+ */
+public class QueryMetricsInterceptor implements HandlerInterceptor {
+
+    private final QueryCounter queryCounter;
+    private final MeterRegistry registry;
+
+    public QueryMetricsInterceptor(QueryCounter queryCounter, MeterRegistry registry) {
+        this.queryCounter = queryCounter;
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        queryCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", pattern == null ? "UNKNOWN" : pattern.toString());
+
+        record("phonebook.request.statements", tags, queryCounter.getStatements());
+        record("phonebook.request.entity.loads", tags, queryCounter.getEntityLoads());
+        record("phonebook.request.collection.fetches", tags, queryCounter.getCollectionFetches());
+    }
+
+    private void record(String name, Tags tags, long count) {
+        DistributionSummary.builder(name)
+                .tags(tags)
+                .register(registry)
+                .record(count);
+    }
+}
@@ -0,0 +1,86 @@
+package com.mirea.kt.phonebookapp.config;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.mirea.kt.phonebookapp.security.AuthenticatedUser;
+import com.mirea.kt.phonebookapp.security.JWTUtil;
+import com.mirea.kt.phonebookapp.security.TokenClaims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Security of the reactive profile: the same Bearer JWT as {@link JWTFilter}, checked without a database
+ * round trip. Whether the user still exists is answered by the contacts version query every read starts with.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    private final JWTUtil jwtUtil;
+
+    @Autowired
+    public ReactiveSecurityConfig(JWTUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+                .csrf().disable()
+                .httpBasic().disable()
+                .formLogin().disable()
+                .logout().disable()
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .addFilterAt(jwtAuthenticationFilter(), SecurityWebFiltersOrder.AUTHENTICATION)
+                .authorizeExchange().anyExchange().permitAll()
+                .and()
+                .build();
+    }
+
+    private AuthenticationWebFilter jwtAuthenticationFilter() {
+        ReactiveAuthenticationManager authenticationManager = authentication -> {
+            try {
+                TokenClaims claims = jwtUtil.validateAccessToken((String) authentication.getCredentials());
+                return Mono.just(new UsernamePasswordAuthenticationToken(
+                        new AuthenticatedUser(claims.getUserId(), claims.getLogin()), null, List.of()));
+            } catch (JWTVerificationException e) {
+                return Mono.error(new BadCredentialsException("Invalid JWT Token", e));
+            }
+        };
+
+        AuthenticationWebFilter filter = new AuthenticationWebFilter(authenticationManager);
+        filter.setServerAuthenticationConverter(exchange -> {
+            String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                return Mono.empty();
+            }
+
+            String jwt = authHeader.substring(7);
+            return Mono.just((Authentication) new UsernamePasswordAuthenticationToken(jwt, jwt));
+        });
+        filter.setAuthenticationFailureHandler((webFilterExchange, e) -> {
+            webFilterExchange.getExchange().getResponse().setStatusCode(HttpStatus.BAD_REQUEST);
+            return webFilterExchange.getExchange().getResponse().setComplete();
+        });
+
+        return filter;
+    }
+}
@@ -0,0 +1,91 @@
+package com.mirea.kt.phonebookapp.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate's second-level cache in Caffeine, one region per cached entity and collection, each sized by its
+ * own entity_cache_*_size. Regions are READ_WRITE: a write locks its entries until commit, readers go to the
+ * database meanwhile. Inserts and deletes of numbers evict the contact's cached collection. User is not cached,
+ * every contact write bumps its contacts_version with a bulk update that would empty its regions.
+ * Hits, misses and puts of every region are in the hibernate.second.level.cache.* meters.
+ */
+@Component
+public class SecondLevelCacheCustomizer implements HibernatePropertiesCustomizer, DisposableBean {
+
+    private static final String CONTACT = "contact";
+    private static final String CONTACT_NUMBERS = "contact_numbers";
+    private static final String CONTACT_TAGS = "contact_tags";
+    private static final String PHONE_NUMBER = "phone_number";
+
+    // Null if the cache is turned off
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public SecondLevelCacheCustomizer(@Value("${entity_cache_enabled:true}") boolean enabled,
+                                      @Value("${entity_cache_ttl_minutes:60}") long ttlMinutes,
+                                      @Value("${entity_cache_contact_size:100000}") long contactSize,
+                                      @Value("${entity_cache_contact_numbers_size:100000}") long contactNumbersSize,
+                                      @Value("${entity_cache_contact_tags_size:100000}") long contactTagsSize,
+                                      @Value("${entity_cache_phone_number_size:200000}") long phoneNumberSize) {
+        if (!enabled) {
+            cacheManager = null;
+            return;
+        }
+
+        // The provider keeps one manager per URI, every application context needs its own
+        cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager(
+                URI.create("phonebook-entity-cache-" + System.identityHashCode(this)), getClass().getClassLoader());
+
+        long ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutes);
+        createRegion(CONTACT, contactSize, ttlNanos);
+        createRegion(CONTACT_NUMBERS, contactNumbersSize, ttlNanos);
+        createRegion(CONTACT_TAGS, contactTagsSize, ttlNanos);
+        createRegion(PHONE_NUMBER, phoneNumberSize, ttlNanos);
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        if (cacheManager == null) {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+            return;
+        }
+
+        hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+        hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+        hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+        // A region without a size is a mistake, not something to create unbounded
+        hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY,
+                MissingCacheStrategy.FAIL.getExternalRepresentation());
+        hibernateProperties.put(AvailableSettings.AUTO_EVICT_COLLECTION_CACHE, true);
+    }
+
+    @Override
+    public void destroy() {
+        if (cacheManager != null) {
+            cacheManager.close();
+        }
+    }
+
+    private void createRegion(String name, long size, long ttlNanos) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(size));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttlNanos));
+        cacheManager.createCache(name, configuration);
+    }
+}
@@ -1,29 +1,43 @@
 package com.mirea.kt.phonebookapp.controllers;
 
 import com.mirea.kt.phonebookapp.dto.AuthenticationDTO;
+import com.mirea.kt.phonebookapp.dto.RefreshTokenDTO;
 import com.mirea.kt.phonebookapp.models.User;
-import com.mirea.kt.phonebookapp.security.JWTUtil;
+import com.mirea.kt.phonebookapp.security.TokenPair;
+import com.mirea.kt.phonebookapp.security.UserDetails;
+import com.mirea.kt.phonebookapp.services.AuthTokenService;
 import com.mirea.kt.phonebookapp.services.UserService;
 import com.mirea.kt.phonebookapp.util.UserValidator;
+import com.mirea.kt.phonebookapp.util.exceptions.InvalidParamsException;
+import com.mirea.kt.phonebookapp.util.exceptions.InvalidTokenException;
+import com.mirea.kt.phonebookapp.util.exceptions.PasswordEncoderBusyException;
 import com.mirea.kt.phonebookapp.util.exceptions.UserErrorResponse;
 import com.mirea.kt.phonebookapp.util.exceptions.UserNotCreatedException;
 import com.mirea.kt.phonebookapp.util.exceptions.UserNotFoundException;
+import com.mirea.kt.phonebookapp.util.mappers.UserMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.Parameters;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
@@ -31,21 +45,22 @@ import java.util.List;
 import java.util.Map;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Tag(name = "Аутентификация", description = "Авторизация/Регистрация с возможностью получить JWT-токен, " +
-        "который будет действителен в течении часа")
+        "который действителен 15 минут, и refresh-токен для получения новой пары токенов")
 public class AuthController {
 
     private final AuthenticationManager authenticationManager;
-    private final JWTUtil jwtUtil;
-    private final ModelMapper modelMapper;
+    private final AuthTokenService authTokenService;
+    private final UserMapper userMapper;
     private final UserValidator userValidator;
     private final UserService userService;
 
     @Autowired
-    public AuthController(AuthenticationManager authenticationManager, JWTUtil jwtUtil, ModelMapper modelMapper, UserValidator userValidator, UserService userService) {
+    public AuthController(AuthenticationManager authenticationManager, AuthTokenService authTokenService, UserMapper userMapper, UserValidator userValidator, UserService userService) {
         this.authenticationManager = authenticationManager;
-        this.jwtUtil = jwtUtil;
-        this.modelMapper = modelMapper;
+        this.authTokenService = authTokenService;
+        this.userMapper = userMapper;
         this.userValidator = userValidator;
         this.userService = userService;
     }
@@ -53,12 +68,12 @@ public class AuthController {
     @Operation(
             summary = "Авторизоваться",
             description = "Примнимает на вход JSON-объект с логином и паролем, в случае, если пользователь найден " +
-                    "возвращает JWT-токен"
+                    "возвращает JWT-токен и refresh-токен"
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
-                    description = "Пользователь успешно найден и возвращен JSON c токеном"
+                    description = "Пользователь успешно найден и возвращен JSON c токенами"
             ),
             @ApiResponse(
                     responseCode = "400",
@@ -67,6 +82,10 @@ public class AuthController {
             @ApiResponse(
                     responseCode = "404",
                     description = "Пользователь с таким логином и паролем не найден"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Слишком много одновременных входов и регистраций, повторите запрос позже"
             )
     })
     @PostMapping("/login")
@@ -74,35 +93,40 @@ public class AuthController {
         UsernamePasswordAuthenticationToken authInputToken =
                 new UsernamePasswordAuthenticationToken(authenticationDTO.getLogin(), authenticationDTO.getPassword());
 
+        Authentication authentication;
         try {
-            authenticationManager.authenticate(authInputToken);
+            authentication = authenticationManager.authenticate(authInputToken);
         } catch (BadCredentialsException e) {
             throw new UserNotFoundException();
         }
 
-        String token = jwtUtil.generateToken(authenticationDTO.getLogin());
-        return Map.of("jwt-token", token);
+        User user = ((UserDetails) authentication.getPrincipal()).getUser();
+        return toResponse(authTokenService.issueTokens(user.getId(), user.getLogin()));
     }
 
     @Operation(
             summary = "Зарегистрироваться",
             description = "Примнимает на вход JSON-объект с логином и паролем, " +
-                    "регистрирует пользователя и возвращает JWT-токен"
+                    "регистрирует пользователя и возвращает JWT-токен и refresh-токен"
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
-                    description = "Пользователь успешно зарегистрирован и возвращен JSON c токеном"
+                    description = "Пользователь успешно зарегистрирован и возвращен JSON c токенами"
             ),
             @ApiResponse(
                     responseCode = "400",
                     description = "Неверный формат переданных данных или пользователь с таким логином уже есть"
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Слишком много одновременных входов и регистраций, повторите запрос позже"
             )
     })
     @PostMapping("/register")
     public Map<String, String> performRegistration(@RequestBody @Valid AuthenticationDTO authenticationDTO,
                                                    BindingResult bindingResult) {
-        User user = convertToUser(authenticationDTO);
+        User user = userMapper.toUser(authenticationDTO);
 
         userValidator.validate(user, bindingResult);
 
@@ -121,8 +145,100 @@ public class AuthController {
 
         userService.addUser(user);
 
-        String token = jwtUtil.generateToken(user.getLogin());
-        return Map.of("jwt-token", token);
+        return toResponse(authTokenService.issueTokens(user.getId(), user.getLogin()));
+    }
+
+    @Operation(
+            summary = "Обновить токены",
+            description = "Принимает refresh-токен и возвращает новую пару JWT-токена и refresh-токена. " +
+                    "Каждый refresh-токен можно использовать только один раз"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Возвращен JSON c новыми токенами"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Refresh-токен не передан"
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Refresh-токен некорректный, истек, уже использован или пользователь удален"
+            )
+    })
+    @PostMapping("/refresh")
+    public Map<String, String> refreshTokens(@RequestBody @Valid RefreshTokenDTO refreshTokenDTO,
+                                             BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            throw new InvalidParamsException();
+        }
+
+        return toResponse(authTokenService.refreshTokens(refreshTokenDTO.getRefreshToken()));
+    }
+
+    @Operation(
+            summary = "Выйти",
+            description = "Отзывает refresh-токен и JWT-токен из заголовка Authorization, если он передан"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Токены отозваны"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Refresh-токен не передан"
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Refresh-токен некорректный, истек или уже отозван"
+            )
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<HttpStatus> logout(@RequestBody @Valid RefreshTokenDTO refreshTokenDTO,
+                                             BindingResult bindingResult,
+                                             @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false)
+                                                     String authHeader) {
+        if (bindingResult.hasErrors()) {
+            throw new InvalidParamsException();
+        }
+
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        authTokenService.revokeTokens(refreshTokenDTO.getRefreshToken(), accessToken);
+
+        return ResponseEntity.ok().build();
+    }
+
+    private static Map<String, String> toResponse(TokenPair tokens) {
+        return Map.of("jwt-token", tokens.getAccessToken(), "refresh-token", tokens.getRefreshToken());
+    }
+
+    @Operation(
+            summary = "Проверить, свободен ли логин",
+            description = "Для подсказки при вводе логина на форме регистрации. Свободный логин не гарантирует " +
+                    "успешной регистрации: его могут занять раньше"
+    )
+    @Parameters(value = {
+            @Parameter(name = "login", description = "Логин (от 2 до 100 символов)")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Возвращен JSON с полем available"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Логин короче 2 или длиннее 100 символов"
+            )
+    })
+    @GetMapping("/auth/available")
+    public Map<String, Boolean> checkLoginAvailable(@RequestParam String login) {
+        if (login.length() < 2 || login.length() > 100) {
+            throw new InvalidParamsException();
+        }
+
+        return Map.of("available", !userService.isLoginTaken(login));
     }
 
     @ExceptionHandler
@@ -145,7 +261,35 @@ public class AuthController {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
-    private User convertToUser(AuthenticationDTO authenticationDTO) {
-        return modelMapper.map(authenticationDTO, User.class);
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(InvalidParamsException e) {
+        UserErrorResponse response = new UserErrorResponse(
+                "Invalid params",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(InvalidTokenException e) {
+        UserErrorResponse response = new UserErrorResponse(
+                "Invalid refresh token",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(PasswordEncoderBusyException e) {
+        UserErrorResponse response = new UserErrorResponse(
+                "Too many logins at once, try again later",
+                System.currentTimeMillis()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
     }
 }
@@ -0,0 +1,217 @@
+package com.mirea.kt.phonebookapp.controllers;
+
+import com.mirea.kt.phonebookapp.services.AvatarStorageService;
+import com.mirea.kt.phonebookapp.services.AvatarThumbnailService;
+import com.mirea.kt.phonebookapp.util.ImageFormat;
+import com.mirea.kt.phonebookapp.util.exceptions.AvatarNotFoundException;
+import com.mirea.kt.phonebookapp.util.exceptions.InvalidParamsException;
+import com.mirea.kt.phonebookapp.util.exceptions.UserErrorResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.Parameters;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/avatar")
+@Tag(name = "Аватары", description = "Скачивание изображений контактов")
+public class AvatarController {
+
+    // Tomcat writes the file with sendfile(2) after the servlet returns when these are set (see DefaultServlet);
+    // the file name has to be canonical
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // The name is the content hash, so a response never goes stale
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    // The original sent in place of a thumbnail that is not generated yet must not be cached as the thumbnail
+    private static final String FALLBACK_CACHE_CONTROL = "no-cache";
+
+    private final AvatarStorageService avatarStorageService;
+    private final AvatarThumbnailService avatarThumbnailService;
+
+    @Autowired
+    public AvatarController(AvatarStorageService avatarStorageService, AvatarThumbnailService avatarThumbnailService) {
+        this.avatarStorageService = avatarStorageService;
+        this.avatarThumbnailService = avatarThumbnailService;
+    }
+
+    @Operation(
+            summary = "Скачать аватар",
+            description = "Возвращает изображение по imageName контакта. Не требует JWT-токена: имя - это SHA-256 " +
+                    "содержимого. Поддерживает Range (один диапазон), ETag с If-None-Match и кэшируется на год. " +
+                    "С size возвращает квадратную миниатюру; пока она не готова, возвращается оригинал " +
+                    "с Cache-Control: no-cache"
+    )
+    @Parameters(value = {
+            @Parameter(name = "name", description = "imageName контакта"),
+            @Parameter(name = "size", description = "Размер миниатюры в пикселях (по умолчанию 64 или 256)")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Возвращено изображение целиком"
+            ),
+            @ApiResponse(
+                    responseCode = "206",
+                    description = "Возвращен запрошенный в Range диапазон байт"
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Изображение не изменилось с момента получения ETag из If-None-Match"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Миниатюр такого размера нет"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Изображения с таким именем нет"
+            ),
+            @ApiResponse(
+                    responseCode = "416",
+                    description = "Диапазон из Range лежит за концом файла"
+            )
+    })
+    @GetMapping("/{name}")
+    public void downloadAvatar(@PathVariable String name, @RequestParam(required = false) Integer size,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = avatarStorageService.find(name);
+
+        if (file == null) {
+            throw new AvatarNotFoundException();
+        }
+
+        String hash = name.substring(0, name.indexOf('.'));
+        String eTag = "\"" + hash + "\"";
+        String cacheControl = CACHE_CONTROL;
+
+        if (size != null) {
+            if (!avatarThumbnailService.isSupportedSize(size)) {
+                throw new InvalidParamsException();
+            }
+
+            Path thumbnail = avatarThumbnailService.findThumbnail(name, size);
+
+            if (thumbnail != null) {
+                file = thumbnail;
+                eTag = "\"" + hash + "-" + size + "\"";
+            } else {
+                cacheControl = FALLBACK_CACHE_CONTROL;
+            }
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (new ServletWebRequest(request, response).checkNotModified(eTag)) {
+            return;
+        }
+
+        long length = Files.size(file);
+        long start = 0;
+        long end = length;
+
+        HttpRange range = requestedRange(request, eTag);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length) + 1;
+
+            if (start >= length || start >= end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+        }
+
+        String fileName = file.getFileName().toString();
+        String extension = fileName.substring(fileName.indexOf('.') + 1);
+        response.setContentType(ImageFormat.fromExtension(extension).getMediaType());
+        response.setContentLengthLong(end - start);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        // Without sendfile (another container, TLS) transferTo copies through a small direct buffer
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+
+            for (long position = start; position < end; ) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    /**
+     * @return the single range to send, or null to send the whole file: without Range, with If-Range for
+     * another version, with several ranges or a malformed header, all allowed to be ignored by RFC 7233
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String eTag) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(eTag)) {
+            return null;
+        }
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(InvalidParamsException e) {
+        UserErrorResponse response = new UserErrorResponse(
+                "Invalid params",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(AvatarNotFoundException e) {
+        UserErrorResponse response = new UserErrorResponse(
+                "Can not found avatar",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    }
+}
@@ -1,64 +1,130 @@
 package com.mirea.kt.phonebookapp.controllers;
 
+import com.mirea.kt.phonebookapp.dto.ContactChangesDTO;
 import com.mirea.kt.phonebookapp.dto.ContactDTO;
-import com.mirea.kt.phonebookapp.dto.PhoneNumberDTO;
+import com.mirea.kt.phonebookapp.dto.ContactImportResultDTO;
+import com.mirea.kt.phonebookapp.dto.ContactPageDTO;
 import com.mirea.kt.phonebookapp.models.Contact;
-import com.mirea.kt.phonebookapp.models.PhoneNumber;
-import com.mirea.kt.phonebookapp.models.User;
-import com.mirea.kt.phonebookapp.security.UserDetails;
+import com.mirea.kt.phonebookapp.models.ContactChanges;
+import com.mirea.kt.phonebookapp.models.enums.ContactSortOrder;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactsVersion;
+import com.mirea.kt.phonebookapp.security.AuthenticatedUser;
+import com.mirea.kt.phonebookapp.services.AvatarStorageService;
+import com.mirea.kt.phonebookapp.services.AvatarThumbnailService;
+import com.mirea.kt.phonebookapp.services.ContactSearchService;
 import com.mirea.kt.phonebookapp.services.ContactService;
+import com.mirea.kt.phonebookapp.services.ContactSyncService;
+import com.mirea.kt.phonebookapp.services.ContactTagService;
+import com.mirea.kt.phonebookapp.services.PhoneNumberLookupService;
 import com.mirea.kt.phonebookapp.services.UserService;
+import com.mirea.kt.phonebookapp.util.ChangeToken;
+import com.mirea.kt.phonebookapp.util.ContactCsvExportWriter;
+import com.mirea.kt.phonebookapp.util.ContactExportWriter;
+import com.mirea.kt.phonebookapp.util.ContactImportReader;
+import com.mirea.kt.phonebookapp.util.ContactJsonWriter;
+import com.mirea.kt.phonebookapp.util.ContactVCardExportWriter;
+import com.mirea.kt.phonebookapp.util.TagExpression;
+import com.mirea.kt.phonebookapp.util.exceptions.AvatarTooLargeException;
+import com.mirea.kt.phonebookapp.util.exceptions.ChangeTokenExpiredException;
+import com.mirea.kt.phonebookapp.util.exceptions.ContactNotFoundException;
 import com.mirea.kt.phonebookapp.util.exceptions.InvalidParamsException;
 import com.mirea.kt.phonebookapp.util.exceptions.UnauthorizedRequestException;
 import com.mirea.kt.phonebookapp.util.exceptions.UserErrorResponse;
 import com.mirea.kt.phonebookapp.util.exceptions.UserNotFoundException;
+import com.mirea.kt.phonebookapp.util.mappers.ContactMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
-import java.util.ArrayList;
-import java.util.HashMap;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/contact")
 @Tag(name = "Контакты", description = "CRUD-операции для работы с контактами пользователя")
 public class ContactController {
 
     private final ContactService contactService;
+    private final ContactSearchService contactSearchService;
+    private final ContactTagService contactTagService;
+    private final ContactSyncService contactSyncService;
+    private final PhoneNumberLookupService phoneNumberLookupService;
+    private final AvatarStorageService avatarStorageService;
+    private final AvatarThumbnailService avatarThumbnailService;
     private final UserService userService;
-    private final ModelMapper modelMapper;
+    private final ContactMapper contactMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final boolean unpagedListEnabled;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_TAG_EXPRESSION_LENGTH = 1000;
 
     @Autowired
-    public ContactController(ContactService contactService, UserService userService, ModelMapper modelMapper) {
+    public ContactController(ContactService contactService, ContactSearchService contactSearchService,
+                             ContactTagService contactTagService, ContactSyncService contactSyncService,
+                             PhoneNumberLookupService phoneNumberLookupService, AvatarStorageService avatarStorageService,
+                             AvatarThumbnailService avatarThumbnailService,
+                             UserService userService, ContactMapper contactMapper, ObjectMapper objectMapper,
+                             Validator validator,
+                             @Value("${contact_list_unpaged:true}") boolean unpagedListEnabled) {
         this.contactService = contactService;
+        this.contactSearchService = contactSearchService;
+        this.contactTagService = contactTagService;
+        this.contactSyncService = contactSyncService;
+        this.phoneNumberLookupService = phoneNumberLookupService;
+        this.avatarStorageService = avatarStorageService;
+        this.avatarThumbnailService = avatarThumbnailService;
         this.userService = userService;
-        this.modelMapper = modelMapper;
+        this.contactMapper = contactMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.unpagedListEnabled = unpagedListEnabled;
     }
 
     @Operation(
             summary = "Получить все контакты пользователя",
             description = "По токену определяется пользователь и возвращается JSON-map с контактами," +
-                    "где ключ - айди контакта, значение - сам контакт"
+                    "где ключ - айди контакта, значение - сам контакт. JSON пишется в ответ по мере чтения " +
+                    "контактов из базы, не собираясь целиком в памяти. Ответ содержит ETag, который меняется при " +
+                    "любом изменении контактов; с If-None-Match и тем же ETag контакты не читаются и возвращается 304"
     )
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Пользователь успешно найден и возвращен JSON c контактами"
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Контакты не изменились с момента получения ETag из If-None-Match"
+            ),
             @ApiResponse(
                     responseCode = "400",
                     description = "Некорректный JWT-токен"
@@ -74,20 +140,357 @@ public class ContactController {
             )
     })
     @GetMapping
-    public Map<Integer, ContactDTO> getContacts() {
-        User user = authorizeUser();
+    public ResponseEntity<StreamingResponseBody> getContacts(WebRequest webRequest) {
+        if (!unpagedListEnabled) {
+            throw new InvalidParamsException();
+        }
+
+        int userId = authenticatedUserId();
+        ContactsVersion version = userService.getContactsVersion(userId);
+
+        if (version == null) {
+            throw new UserNotFoundException();
+        }
 
-        Map<Integer, ContactDTO> map = new HashMap<>();
+        // Read before the contacts, so the body is never older than its ETag
+        String eTag = "\"" + version.getId() + "-" + version.getContactsVersion() + "\"";
 
-        if (!user.getContacts().isEmpty()) {
-            for (Contact contact : user.getContacts()) {
-                map.put(contact.getId(), convertToContactDTO(contact));
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try (ContactJsonWriter writer = new ContactJsonWriter(objectMapper, outputStream)) {
+                contactService.forEachContactRow(userId, writer::addTag, writer);
             }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(eTag)
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Получить страницу контактов пользователя",
+            description = "Постраничная выдача контактов по ключу (keyset). Возвращает не более limit контактов, " +
+                    "идущих после контакта с ID after в порядке сортировки sort, и курсор для следующей страницы"
+    )
+    @Parameters(value = {
+            @Parameter(name = "after", description = "ID последнего контакта предыдущей страницы " +
+                    "(не указывается для первой страницы)"),
+            @Parameter(name = "limit", description = "Размер страницы (от 1 до 1000)"),
+            @Parameter(name = "sort", description = "Порядок сортировки: по ID или по имени (ID, NAME соответственно)")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Возвращен JSON cо страницей контактов"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Некорректные параметры страницы или JWT-токен"
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Неавторизованный запрос (отсутствие JWT-токена в загаловках HTTP-запроса)"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "JWT-токен корректный, но пользователь с таким токеном не найден " +
+                            "(например, пользователь был удален)"
+            )
+    })
+    @GetMapping(params = "limit")
+    public ContactPageDTO getContactsPage(@RequestParam(required = false) Integer after,
+                                          @RequestParam int limit,
+                                          @RequestParam(defaultValue = "ID") ContactSortOrder sort) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidParamsException();
+        }
+
+        int userId = authenticatedUserId();
+
+        List<Contact> contacts = contactService.getContactsPage(userId, after, limit + 1, sort);
+
+        if (contacts == null) {
+            throw new InvalidParamsException();
+        }
+
+        boolean hasNext = contacts.size() > limit;
+        if (hasNext) {
+            contacts = contacts.subList(0, limit);
+        }
+
+        Map<Integer, ContactDTO> map = new LinkedHashMap<>();
+        for (Contact contact : contacts) {
+            map.put(contact.getId(), contactMapper.toContactDTO(contact));
+        }
+
+        Integer nextCursor = hasNext ? contacts.get(limit - 1).getId() : null;
+        return new ContactPageDTO(map, nextCursor);
+    }
+
+    @Operation(
+            summary = "Найти контакты по началу имени",
+            description = "Возвращает JSON-map контактов (в порядке имен), имя которых начинается с q. " +
+                    "Регистр не учитывается, кириллица и латиница сравниваются по транслитерации"
+    )
+    @Parameters(value = {
+            @Parameter(name = "q", description = "Начало имени контакта"),
+            @Parameter(name = "limit", description = "Максимальное количество контактов (от 1 до 100)")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Возвращен JSON c найденными контактами"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Некорректные параметры или JWT-токен"
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Неавторизованный запрос (отсутствие JWT-токена в загаловках HTTP-запроса)"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "JWT-токен корректный, но пользователь с таким токеном не найден " +
+                            "(например, пользователь был удален)"
+            )
+    })
+    @GetMapping("/search")
+    public Map<Integer, ContactDTO> searchContacts(@RequestParam String q,
+                                                   @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new InvalidParamsException();
+        }
+
+        int userId = authenticatedUserId();
+
+        List<Integer> ids = contactSearchService.searchByNamePrefix(userId, q, limit);
+
+        Map<Integer, ContactDTO> map = new LinkedHashMap<>();
+        for (Contact contact : contactService.getContactsByIds(ids)) {
+            map.put(contact.getId(), contactMapper.toContactDTO(contact));
         }
 
         return map;
     }
 
+    @Operation(
+            summary = "Отфильтровать контакты по тегам",
+            description = "Постраничная выдача (по ID) контактов, теги которых подходят под выражение tags. " +
+                    "В выражении & - И, | - ИЛИ (И связывает сильнее), скобки группируют, например " +
+                    "work & (family | friends). В URL & и | нужно кодировать (%26 и %7C). Регистр тегов не учитывается"
+    )
+    @Parameters(value = {
+            @Parameter(name = "tags", description = "Выражение над тегами"),
+            @Parameter(name = "after", description = "ID последнего контакта предыдущей страницы " +
+                    "(не указывается для первой страницы)"),
+            @Parameter(name = "limit", description = "Размер страницы (от 1 до 1000)")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Возвращен JSON cо страницей контактов"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Некорректное выражение, параметры страницы или JWT-токен"
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Неавторизованный запрос (отсутствие JWT-токена в загаловках HTTP-запроса)"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "JWT-токен корректный, но пользователь с таким токеном не найден " +
+                            "(например, пользователь был удален)"
+            )
+    })
+    @GetMapping("/filter")
+    public ContactPageDTO filterContacts(@RequestParam String tags,
+                                         @RequestParam(required = false) Integer after,
+                                         @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE || tags.length() > MAX_TAG_EXPRESSION_LENGTH) {
+            throw new InvalidParamsException();
+        }
+
+        TagExpression expression;
+        try {
+            expression = TagExpression.parse(tags);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParamsException();
+        }
+
+        int userId = authenticatedUserId();
+
+        List<Integer> ids = contactTagService.filterByTags(userId, expression, after, limit + 1);
+
+        boolean hasNext = ids.size() > limit;
+        if (hasNext) {
+            ids = ids.subList(0, limit);
+        }
+
+        Map<Integer, ContactDTO> map = new LinkedHashMap<>();
+        for (Contact contact : contactService.getContactsByIds(ids)) {
+            map.put(contact.getId(), contactMapper.toContactDTO(contact));
+        }
+
+        Integer nextCursor = hasNext ? ids.get(limit - 1) : null;
+        return new ContactPageDTO(map, nextCursor);
+    }
+
+    @Operation(
+            summary = "Получить изменения контактов",
+            description = "Возвращает контакты, добавленные или измененные после выдачи токена since, айди контактов, " +
+                    "удаленных после этого, и новый токен. Без since возвращаются все контакты (первая синхронизация)"
+    )
+    @Parameters(value = {
+            @Parameter(name = "since", description = "Токен из предыдущего ответа (не указывается при первой синхронизации)")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Возвращен JSON c изменениями и новым токеном"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Некорректный токен синхронизации или JWT-токен"
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Неавторизованный запрос (отсутствие JWT-токена в загаловках HTTP-запроса)"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "JWT-токен корректный, но пользователь с таким токеном не найден " +
+                            "(например, пользователь был удален)"
+            ),
+            @ApiResponse(
+                    responseCode = "410",
+                    description = "Токен устарел (сведения об удалениях уже не хранятся), нужна синхронизация без since"
+            )
+    })
+    @GetMapping("/changes")
+    public ContactChangesDTO getContactChanges(@RequestParam(required = false) String since) {
+        ChangeToken token;
+        try {
+            token = since == null ? null : ChangeToken.parse(since);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParamsException();
+        }
+
+        int userId = authenticatedUserId();
+
+        ContactChanges changes = contactSyncService.getChangesSince(userId, token);
+
+        Map<Integer, ContactDTO> changed = new LinkedHashMap<>();
+        for (Contact contact : changes.getChanged()) {
+            changed.put(contact.getId(), contactMapper.toContactDTO(contact));
+        }
+
+        return new ContactChangesDTO(changed, changes.getDeletedIds(), changes.getToken().toString());
+    }
+
+    @Operation(
+            summary = "Найти контакт по номеру телефона",
+            description = "Возвращает JSON-map из одного контакта пользователя, у которого есть такой номер. " +
+                    "Номера сравниваются без учета форматирования (8 и +7 в начале российских номеров равнозначны)"
+    )
+    @Parameters(value = {
+            @Parameter(name = "number", description = "Номер телефона в любом формате")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Контакт найден и возвращен JSON c ним"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Некорректный JWT-токен"
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Неавторизованный запрос (отсутствие JWT-токена в загаловках HTTP-запроса)"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "У пользователя нет контакта с таким номером"
+            )
+    })
+    @GetMapping("/by-number/{number}")
+    public Map<Integer, ContactDTO> getContactByNumber(@PathVariable String number) {
+        int userId = authenticatedUserId();
+
+        Integer id = phoneNumberLookupService.findContactIdByNumber(userId, number);
+        List<Contact> contacts = id == null ? List.of() : contactService.getContactsByIds(List.of(id));
+
+        if (contacts.isEmpty()) {
+            throw new ContactNotFoundException();
+        }
+
+        Contact contact = contacts.get(0);
+        return Map.of(contact.getId(), contactMapper.toContactDTO(contact));
+    }
+
+    @Operation(
+            summary = "Экспортировать контакты",
+            description = "Выгружает все контакты пользователя файлом в формате CSV (столбцы name,imageName,numbers, " +
+                    "как при импорте) или vCard. Файл пишется в ответ по мере чтения контактов из базы"
+    )
+    @Parameters(value = {
+            @Parameter(name = "format", description = "Формат файла: csv или vcf"),
+            @Parameter(name = "gzip", description = "Сжать файл gzip")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Файл с контактами"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Неизвестный формат или некорректный JWT-токен"
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Неавторизованный запрос (отсутствие JWT-токена в загаловках HTTP-запроса)"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "JWT-токен корректный, но пользователь с таким токеном не найден " +
+                            "(например, пользователь был удален)"
+            )
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportContacts(@RequestParam(defaultValue = "csv") String format,
+                                                                @RequestParam(defaultValue = "false") boolean gzip) {
+        if (!format.equals("csv") && !format.equals("vcf")) {
+            throw new InvalidParamsException();
+        }
+
+        int userId = authenticatedUserId();
+
+        StreamingResponseBody body = outputStream -> {
+            try (ContactExportWriter writer = format.equals("csv")
+                    ? new ContactCsvExportWriter(outputStream, gzip)
+                    : new ContactVCardExportWriter(outputStream, gzip)) {
+                contactService.forEachContactRow(userId, writer);
+            }
+        };
+
+        String fileName = "contacts." + format + (gzip ? ".gz" : "");
+        MediaType contentType = gzip
+                ? MediaType.valueOf("application/gzip")
+                : MediaType.valueOf(format.equals("csv") ? "text/csv;charset=UTF-8" : "text/vcard;charset=UTF-8");
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
     @Operation(
             summary = "Добавить контакт",
             description = "Принимает JSON-объект типа ContactDTO и добавляет его в контакты к пользователю"
@@ -117,15 +520,62 @@ public class ContactController {
             throw new InvalidParamsException();
         }
 
-        User user = authorizeUser();
+        int userId = authenticatedUserId();
 
-        Contact contact = convertToContact(contactDTO);
-        contact.setOwner(user);
-        contactService.addContact(user, contact);
+        Contact contact = contactMapper.toContact(contactDTO);
+        contactService.addContact(userId, contact);
 
         return ResponseEntity.ok().build();
     }
 
+    @Operation(
+            summary = "Импортировать контакты",
+            description = "Принимает JSON-массив объектов типа ContactDTO, NDJSON (по объекту ContactDTO в строке) " +
+                    "или CSV со столбцами name,imageName,numbers (номера в виде number:TYPE через ';') и добавляет " +
+                    "контакты пользователю. Строки с ошибками пропускаются и перечисляются в ответе"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Импорт выполнен, возвращен JSON с количеством добавленных контактов и ошибками по строкам"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Тело запроса не удалось прочитать как массив контактов"
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Неавторизованный запрос (отсутствие JWT-токена в загаловках HTTP-запроса)"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "JWT-токен корректный, но пользователь с таким токеном не найден " +
+                            "(например, пользователь был удален)"
+            ),
+            @ApiResponse(
+                    responseCode = "415",
+                    description = "Формат тела не поддерживается (нужен application/json, application/x-ndjson или text/csv)"
+            )
+    })
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            "text/csv"})
+    public ContactImportResultDTO importContacts(HttpServletRequest request) throws IOException {
+        int userId = authenticatedUserId();
+
+        ContactImportReader reader;
+        try {
+            reader = new ContactImportReader(request.getInputStream(), MediaType.valueOf(request.getContentType()),
+                    objectMapper, validator, contactMapper);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new InvalidParamsException();
+        }
+
+        try (reader) {
+            int imported = contactService.importContacts(userId, reader);
+            return new ContactImportResultDTO(imported, reader.getFailed(), reader.getErrors());
+        }
+    }
+
     @Operation(
             summary = "Обновить контакт",
             description = "Принимает JSON-объект типа ContactDTO, ID контакта из URL и обновляет его в контактах пользователя"
@@ -158,13 +608,12 @@ public class ContactController {
             return ResponseEntity.badRequest().build();
         }
 
-        User user = authorizeUser();
+        int userId = authenticatedUserId();
 
-        Contact contact = convertToContact(contactDTO);
-        contact.setOwner(user);
+        Contact contact = contactMapper.toContact(contactDTO);
         contact.setId(id);
 
-        if (!contactService.updateContact(user, contact)) {
+        if (!contactService.updateContact(userId, contact)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
@@ -198,68 +647,82 @@ public class ContactController {
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<HttpStatus> deleteContact(@PathVariable int id) {
-        User user = authorizeUser();
+        int userId = authenticatedUserId();
 
-        if (!contactService.deleteContact(user, id)) {
+        if (!contactService.deleteContact(userId, id)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
         return ResponseEntity.ok().build();
     }
 
-
-
-    private Contact convertToContact(ContactDTO contactDTO) {
-        List<PhoneNumber> numbers = new ArrayList<>();
-
-        if (!contactDTO.getNumbers().isEmpty()) {
-            for (PhoneNumberDTO number : contactDTO.getNumbers()) {
-                numbers.add(convertToPhoneNumber(number));
-            }
+    @Operation(
+            summary = "Загрузить аватар контакта",
+            description = "Принимает изображение (PNG, JPEG, GIF или WebP) в теле запроса, сохраняет его под " +
+                    "SHA-256 содержимого и записывает имя файла в imageName контакта. Одинаковые изображения " +
+                    "хранятся один раз. Скачать изображение можно по GET /avatar/{imageName}, миниатюры " +
+                    "создаются в фоне после загрузки"
+    )
+    @Parameters(value = {
+            @Parameter(name = "id", description = "ID контакта")
+    })
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Изображение сохранено, возвращен JSON с новым imageName"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Тело запроса не является изображением поддерживаемого формата или некорректный JWT-токен"
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Неавторизованный запрос (отсутствие JWT-токена в загаловках HTTP-запроса)"
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "У пользователя нет контакта с таким ID"
+            ),
+            @ApiResponse(
+                    responseCode = "413",
+                    description = "Изображение больше допустимого размера"
+            ),
+            @ApiResponse(
+                    responseCode = "415",
+                    description = "Content-Type не image/png, image/jpeg, image/gif или image/webp"
+            )
+    })
+    @PostMapping(value = "/{id}/avatar", consumes = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE,
+            MediaType.IMAGE_GIF_VALUE, "image/webp"})
+    public Map<String, String> uploadAvatar(@PathVariable int id, HttpServletRequest request) throws IOException {
+        int userId = authenticatedUserId();
+
+        // Nothing is written to disk for a contact that is not the caller's
+        if (!contactService.isOwnContact(userId, id)) {
+            throw new ContactNotFoundException();
         }
 
-        Contact contact = modelMapper.map(contactDTO, Contact.class);
-        contact.setNumbers(numbers);
-        return contact;
-    }
-
-    private ContactDTO convertToContactDTO(Contact contact) {
-        List<PhoneNumberDTO> numbersDTO = new ArrayList<>();
-
-        if (!contact.getNumbers().isEmpty()) {
-            for (PhoneNumber number : contact.getNumbers()) {
-                numbersDTO.add(convertToPhoneNumberDTO(number));
-            }
+        String imageName;
+        try (InputStream image = request.getInputStream()) {
+            imageName = avatarStorageService.store(image);
         }
 
-        ContactDTO contactDTO = modelMapper.map(contact, ContactDTO.class);
-        contactDTO.setNumbers(numbersDTO);
-        return contactDTO;
-    }
-
-    private PhoneNumber convertToPhoneNumber(PhoneNumberDTO phoneNumberDTO) {
-        return modelMapper.map(phoneNumberDTO, PhoneNumber.class);
-    }
+        if (!contactService.setImageName(userId, id, imageName)) {
+            throw new ContactNotFoundException();
+        }
 
-    private PhoneNumberDTO convertToPhoneNumberDTO(PhoneNumber phoneNumber) {
-        return modelMapper.map(phoneNumber, PhoneNumberDTO.class);
+        avatarThumbnailService.requestThumbnails(imageName);
+        return Map.of("imageName", imageName);
     }
 
-    private User authorizeUser() {
+    private int authenticatedUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String login = authentication.getName();
 
-        if (login.equals("anonymousUser")) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser)) {
             throw new UnauthorizedRequestException();
         }
 
-        User user = userService.getUserByLogin(login);
-
-        if (user == null) {
-            throw new UserNotFoundException();
-        }
-
-        return user;
+        return ((AuthenticatedUser) authentication.getPrincipal()).getId();
     }
 
     @ExceptionHandler
@@ -282,6 +745,36 @@ public class ContactController {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(ContactNotFoundException e) {
+        UserErrorResponse response = new UserErrorResponse(
+                "Can not found contact",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(ChangeTokenExpiredException e) {
+        UserErrorResponse response = new UserErrorResponse(
+                "Change token expired, sync without it",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.GONE);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(AvatarTooLargeException e) {
+        UserErrorResponse response = new UserErrorResponse(
+                "Avatar is too large",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     @ExceptionHandler
     private ResponseEntity<UserErrorResponse> handleException(InvalidParamsException e) {
         UserErrorResponse response = new UserErrorResponse(
@@ -0,0 +1,270 @@
+package com.mirea.kt.phonebookapp.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mirea.kt.phonebookapp.dto.ContactDTO;
+import com.mirea.kt.phonebookapp.dto.PhoneNumberDTO;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactTag;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactsVersion;
+import com.mirea.kt.phonebookapp.security.AuthenticatedUser;
+import com.mirea.kt.phonebookapp.services.ReactiveContactService;
+import com.mirea.kt.phonebookapp.util.exceptions.ContactNotFoundException;
+import com.mirea.kt.phonebookapp.util.exceptions.InvalidParamsException;
+import com.mirea.kt.phonebookapp.util.exceptions.UnauthorizedRequestException;
+import com.mirea.kt.phonebookapp.util.exceptions.UserErrorResponse;
+import com.mirea.kt.phonebookapp.util.exceptions.UserNotFoundException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads of {@link ContactController} for the "reactive" profile, with the same paths, JSON and ETags.
+ * Writes are not served here and stay on the servlet instances.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/contact")
+@Tag(name = "Контакты (reactive)", description = "Чтение контактов пользователя без блокирующих потоков")
+public class ReactiveContactController {
+
+    private final ReactiveContactService contactService;
+    private final ObjectMapper objectMapper;
+    private final boolean unpagedListEnabled;
+
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final Comparator<Object> TAGS_FIRST = Comparator
+            .comparingInt(ReactiveContactController::contactId)
+            .thenComparing(tagOrRow -> tagOrRow instanceof ContactRow);
+
+    @Autowired
+    public ReactiveContactController(ReactiveContactService contactService, ObjectMapper objectMapper,
+                                     @Value("${contact_list_unpaged:true}") boolean unpagedListEnabled) {
+        this.contactService = contactService;
+        this.objectMapper = objectMapper;
+        this.unpagedListEnabled = unpagedListEnabled;
+    }
+
+    @Operation(
+            summary = "Получить все контакты пользователя",
+            description = "То же, что GET /contact сервлетного приложения: JSON-map контактов пишется по мере " +
+                    "чтения из базы, с ETag и 304 на If-None-Match"
+    )
+    @GetMapping
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getContacts(Mono<Principal> principal, ServerWebExchange exchange) {
+        if (!unpagedListEnabled) {
+            return Mono.error(new InvalidParamsException());
+        }
+
+        return contactsVersion(principal).flatMap(version -> {
+            // Read before the contacts, so the body is never older than its ETag
+            String eTag = "\"" + version.getId() + "-" + version.getContactsVersion() + "\"";
+
+            if (exchange.checkNotModified(eTag)) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build());
+            }
+
+            DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
+
+            // Both are ordered by contact id, so each contact comes as its tags followed by its rows
+            Flux<String> contacts = Flux.<Object>mergeOrdered(TAGS_FIRST,
+                            contactService.streamContactTags(version.getId()),
+                            contactService.streamContactRows(version.getId()))
+                    .bufferUntilChanged(ReactiveContactController::contactId)
+                    .index()
+                    .map(contact -> (contact.getT1() == 0 ? "\"" : ",\"") + contactId(contact.getT2().get(0)) +
+                            "\":" + toJson(toContactDTO(contact.getT2())));
+
+            Flux<DataBuffer> body = Flux.concat(Mono.just("{"), contacts, Mono.just("}"))
+                    .map(json -> bufferFactory.wrap(json.getBytes(StandardCharsets.UTF_8)));
+
+            return Mono.just(ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(eTag)
+                    .body(body));
+        });
+    }
+
+    @Operation(
+            summary = "Найти контакты по началу имени",
+            description = "То же, что GET /contact/search сервлетного приложения"
+    )
+    @GetMapping("/search")
+    public Mono<Map<Integer, ContactDTO>> searchContacts(@RequestParam String q,
+                                                         @RequestParam(defaultValue = "20") int limit,
+                                                         Mono<Principal> principal) {
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            return Mono.error(new InvalidParamsException());
+        }
+
+        return contactsVersion(principal).flatMap(version -> contactService.searchByNamePrefix(version, q, limit)
+                .flatMap(ids -> getContactsByIds(version.getId(), ids)));
+    }
+
+    @Operation(
+            summary = "Найти контакт по номеру телефона",
+            description = "То же, что GET /contact/by-number/{number} сервлетного приложения"
+    )
+    @GetMapping("/by-number/{number}")
+    public Mono<Map<Integer, ContactDTO>> getContactByNumber(@PathVariable String number,
+                                                             Mono<Principal> principal) {
+        return contactsVersion(principal)
+                .flatMap(version -> contactService.findContactIdByNumber(version.getId(), number)
+                        .flatMap(id -> getContactsByIds(version.getId(), List.of(id))))
+                .filter(contacts -> !contacts.isEmpty())
+                .switchIfEmpty(Mono.error(new ContactNotFoundException()));
+    }
+
+    private Mono<Map<Integer, ContactDTO>> getContactsByIds(int userId, List<Integer> ids) {
+        return contactService.getContactTags(userId, ids)
+                .flatMap(tags -> contactService.getContactRowsByIds(userId, ids)
+                        .bufferUntilChanged(ContactRow::getId)
+                        .collectMap(rows -> rows.get(0).getId(),
+                                rows -> toContactDTO(rows, tags.getOrDefault(rows.get(0).getId(), Set.of())),
+                                HashMap::new))
+                .map(contacts -> {
+                    // Rows come ordered by id, the answer keeps the order of ids
+                    Map<Integer, ContactDTO> ordered = new LinkedHashMap<>();
+                    for (Integer id : ids) {
+                        ContactDTO contact = contacts.get(id);
+                        if (contact != null) {
+                            ordered.put(id, contact);
+                        }
+                    }
+                    return ordered;
+                });
+    }
+
+    private Mono<ContactsVersion> contactsVersion(Mono<Principal> principal) {
+        return principal
+                .filter(authenticated -> authenticated instanceof Authentication &&
+                        ((Authentication) authenticated).getPrincipal() instanceof AuthenticatedUser)
+                .switchIfEmpty(Mono.error(new UnauthorizedRequestException()))
+                .flatMap(authenticated -> contactService.getContactsVersion(
+                        ((AuthenticatedUser) ((Authentication) authenticated).getPrincipal()).getId()))
+                .switchIfEmpty(Mono.error(new UserNotFoundException()));
+    }
+
+    private String toJson(ContactDTO contact) {
+        try {
+            return objectMapper.writeValueAsString(contact);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int contactId(Object tagOrRow) {
+        return tagOrRow instanceof ContactTag ? ((ContactTag) tagOrRow).getContactId() : ((ContactRow) tagOrRow).getId();
+    }
+
+    /**
+     * @param tagsAndRows the tags of one contact followed by its rows
+     */
+    private static ContactDTO toContactDTO(List<Object> tagsAndRows) {
+        Set<String> tags = new LinkedHashSet<>(2);
+        List<ContactRow> rows = new ArrayList<>(tagsAndRows.size());
+
+        for (Object tagOrRow : tagsAndRows) {
+            if (tagOrRow instanceof ContactTag) {
+                tags.add(((ContactTag) tagOrRow).getTag());
+            } else {
+                rows.add((ContactRow) tagOrRow);
+            }
+        }
+
+        return toContactDTO(rows, tags);
+    }
+
+    /**
+     * Same DTO as {@link com.mirea.kt.phonebookapp.util.ContactJsonWriter} builds from the rows of one contact.
+     */
+    private static ContactDTO toContactDTO(List<ContactRow> rows, Set<String> tags) {
+        ContactRow first = rows.get(0);
+
+        ContactDTO contact = new ContactDTO();
+        contact.setName(first.getName());
+        contact.setImageName(first.getImageName());
+        contact.setNumbers(new ArrayList<>(rows.size()));
+        contact.setTags(tags);
+
+        for (ContactRow row : rows) {
+            if (row.getNumber() != null) {
+                PhoneNumberDTO number = new PhoneNumberDTO();
+                number.setNumber(row.getNumber());
+                number.setNumberType(row.getNumberType());
+                contact.getNumbers().add(number);
+            }
+        }
+
+        return contact;
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(UnauthorizedRequestException e) {
+        UserErrorResponse response = new UserErrorResponse(
+                "Unauthorized request (use JWT-token)",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(UserNotFoundException e) {
+        UserErrorResponse response = new UserErrorResponse(
+                "Can not found user with such login",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(ContactNotFoundException e) {
+        UserErrorResponse response = new UserErrorResponse(
+                "Can not found contact",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler
+    private ResponseEntity<UserErrorResponse> handleException(InvalidParamsException e) {
+        UserErrorResponse response = new UserErrorResponse(
+                "Invalid params",
+                System.currentTimeMillis()
+        );
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+}
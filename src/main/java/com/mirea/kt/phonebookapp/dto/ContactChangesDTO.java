@@ -0,0 +1,25 @@
+package com.mirea.kt.phonebookapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Изменения контактов с момента получения токена")
+public class ContactChangesDTO {
+
+    @Schema(description = "Добавленные и измененные контакты, где ключ - айди контакта, значение - сам контакт")
+    private Map<Integer, ContactDTO> changed;
+
+    @Schema(description = "Айди удаленных контактов")
+    private List<Integer> deleted;
+
+    @Schema(description = "Токен, который нужно передать в параметре since при следующей синхронизации")
+    private String token;
+}
@@ -4,9 +4,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
 import java.util.List;
+import java.util.Set;
 
 @Data
 @NoArgsConstructor
@@ -23,4 +26,9 @@ public class ContactDTO {
 
     @Schema(description = "Список из номеров телефонов (сущность numberDTO)")
     private List<PhoneNumberDTO> numbers;
+
+    @Size(max = 50, message = "Contact should have at most 50 tags")
+    @Schema(description = "Теги (группы) контакта, например Work или Family")
+    private Set<@NotBlank @Size(max = 50) @Pattern(regexp = "[^&|()]+", message = "Tag should not contain &, |, ( or )")
+            String> tags;
 }
@@ -0,0 +1,19 @@
+package com.mirea.kt.phonebookapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Ошибка в строке импорта")
+public class ContactImportErrorDTO {
+
+    @Schema(description = "Номер строки (элемента массива) начиная с 1")
+    private long row;
+
+    @Schema(description = "Причина, по которой контакт не был импортирован")
+    private String message;
+}
@@ -0,0 +1,24 @@
+package com.mirea.kt.phonebookapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Результат импорта контактов")
+public class ContactImportResultDTO {
+
+    @Schema(description = "Количество добавленных контактов")
+    private int imported;
+
+    @Schema(description = "Количество строк, которые не удалось импортировать")
+    private int failed;
+
+    @Schema(description = "Ошибки по строкам (не больше 1000 первых)")
+    private List<ContactImportErrorDTO> errors;
+}
@@ -0,0 +1,22 @@
+package com.mirea.kt.phonebookapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Страница контактов")
+public class ContactPageDTO {
+
+    @Schema(description = "Контакты страницы в порядке сортировки, где ключ - айди контакта, значение - сам контакт")
+    private Map<Integer, ContactDTO> contacts;
+
+    @Schema(description = "Айди контакта, который нужно передать в параметре after для получения следующей страницы " +
+            "(null, если страница последняя)")
+    private Integer nextCursor;
+}
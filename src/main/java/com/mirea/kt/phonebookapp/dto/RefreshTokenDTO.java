@@ -0,0 +1,19 @@
+package com.mirea.kt.phonebookapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotEmpty;
+
+@Getter
+@Setter
+@Schema(description = "Refresh-токен, выданный при авторизации, регистрации или предыдущем обновлении")
+public class RefreshTokenDTO {
+
+    @NotEmpty(message = "Refresh token can not be empty")
+    @JsonProperty("refresh-token")
+    @Schema(description = "Refresh-токен")
+    private String refreshToken;
+}
@@ -0,0 +1,41 @@
+package com.mirea.kt.phonebookapp.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by {@link com.mirea.kt.phonebookapp.services.impls.ContactServiceImpl} for every write to a user's
+ * contacts. {@code before} is null for a new contact, {@code after} is null for a deleted one,
+ * both are null when many contacts changed at once (import). {@code version} is the user's contacts_version
+ * after the write.
+ */
+@Getter
+@AllArgsConstructor
+public class ContactChangedEvent {
+
+    private final int userId;
+    private final long version;
+    private final ContactSnapshot before;
+    private final ContactSnapshot after;
+
+    public static ContactChangedEvent created(int userId, long version, ContactSnapshot after) {
+        return new ContactChangedEvent(userId, version, null, after);
+    }
+
+    public static ContactChangedEvent updated(int userId, long version, ContactSnapshot before,
+                                              ContactSnapshot after) {
+        return new ContactChangedEvent(userId, version, before, after);
+    }
+
+    public static ContactChangedEvent deleted(int userId, long version, ContactSnapshot before) {
+        return new ContactChangedEvent(userId, version, before, null);
+    }
+
+    public static ContactChangedEvent bulkChanged(int userId, long version) {
+        return new ContactChangedEvent(userId, version, null, null);
+    }
+
+    public boolean isBulk() {
+        return before == null && after == null;
+    }
+}
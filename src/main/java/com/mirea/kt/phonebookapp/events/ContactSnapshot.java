@@ -0,0 +1,38 @@
+package com.mirea.kt.phonebookapp.events;
+
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.util.PhoneNumbers;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Set;
+
+@Getter
+@AllArgsConstructor
+public class ContactSnapshot {
+
+    private final int id;
+    private final String name;
+    private final long[] numbers;
+    private final Set<String> tags;
+
+    public static ContactSnapshot of(Contact contact) {
+        long[] numbers = new long[contact.getNumbers() == null ? 0 : contact.getNumbers().size()];
+        int count = 0;
+
+        if (contact.getNumbers() != null) {
+            for (PhoneNumber number : contact.getNumbers()) {
+                long normalized = PhoneNumbers.normalize(number.getNumber());
+                if (normalized != PhoneNumbers.NONE) {
+                    numbers[count++] = normalized;
+                }
+            }
+        }
+
+        Set<String> tags = contact.getTags() == null ? Set.of() : Set.copyOf(contact.getTags());
+
+        return new ContactSnapshot(contact.getId(), contact.getName(), Arrays.copyOf(numbers, count), tags);
+    }
+}
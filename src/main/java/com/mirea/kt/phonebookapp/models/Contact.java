@@ -1,35 +1,73 @@
 package com.mirea.kt.phonebookapp.models;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.*;
 import java.util.List;
+import java.util.Set;
 
 @Entity
-@Table(name = "contact")
+@Table(name = "contact",
+        indexes = {
+                @Index(name = "contact_owner_update_seq_idx", columnList = "user_id, update_seq"),
+                // Keyset pages sorted by name read the index in order instead of sorting the whole book
+                @Index(name = "contact_owner_name_idx", columnList = "user_id, name, contact_id")
+        })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "contact")
 @Data
 @NoArgsConstructor
 public class Contact {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contact_seq")
+    @SequenceGenerator(name = "contact_seq", sequenceName = "contact_seq", allocationSize = 50)
     @Column(name = "contact_id")
     private int id;
 
     @Column(name = "name")
     private String name;
 
-    @OneToMany(mappedBy = "contact", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "contact", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "contact_numbers")
+    @BatchSize(size = 100)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<PhoneNumber> numbers;
 
     @Column(name = "image_name")
     private String imageName;
 
-    @ManyToOne
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "contact_tag", joinColumns = @JoinColumn(name = "contact_id"),
+            indexes = @Index(name = "contact_tag_contact_idx", columnList = "contact_id"))
+    @Column(name = "tag")
+    // In one subselect after a query, in batches after ContactRepository.findAllCachedById
+    @Fetch(FetchMode.SUBSELECT)
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "contact_tags")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Set<String> tags;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User owner;
 
+    // The owner's contacts_version at the last write of this contact
+    @Column(name = "update_seq", nullable = false)
+    private long updateSeq;
+
 //    {
 //        "name": "Vasya123",
 //            "imageName": "none",
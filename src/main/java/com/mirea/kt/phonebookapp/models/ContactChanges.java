@@ -0,0 +1,16 @@
+package com.mirea.kt.phonebookapp.models;
+
+import com.mirea.kt.phonebookapp.util.ChangeToken;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ContactChanges {
+
+    private final List<Contact> changed;
+    private final List<Integer> deletedIds;
+    private final ChangeToken token;
+}
@@ -0,0 +1,36 @@
+package com.mirea.kt.phonebookapp.models;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Id of a deleted contact, kept for delta sync. Not mapped to Contact or User, so deleting the contact
+ * does not cascade to it; old ones are removed by the retention job.
+ */
+@Entity
+@Table(name = "contact_tombstone",
+        indexes = @Index(name = "contact_tombstone_user_delete_seq_idx", columnList = "user_id, delete_seq"))
+@Data
+@NoArgsConstructor
+public class ContactTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "tombstone_id")
+    private long id;
+
+    @Column(name = "user_id", nullable = false)
+    private int userId;
+
+    @Column(name = "contact_id", nullable = false)
+    private int contactId;
+
+    @Column(name = "delete_seq", nullable = false)
+    private long deleteSeq;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
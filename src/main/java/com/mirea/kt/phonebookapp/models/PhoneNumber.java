@@ -1,30 +1,51 @@
 package com.mirea.kt.phonebookapp.models;
 
 import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import com.mirea.kt.phonebookapp.util.PhoneNumbers;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
-@Table(name = "phone_number")
+@Table(name = "phone_number",
+        indexes = @Index(name = "phone_number_normalized_number_idx", columnList = "normalized_number"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "phone_number")
 @Data
 @NoArgsConstructor
 public class PhoneNumber {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "phone_number_seq")
+    @SequenceGenerator(name = "phone_number_seq", sequenceName = "phone_number_seq", allocationSize = 50)
     @Column(name = "number_id")
     private int id;
 
     @Column(name = "number")
     private String number;
 
+    @Column(name = "normalized_number")
+    private Long normalizedNumber;
+
     @Column(name = "type")
     @Enumerated(EnumType.STRING)
     private NumberType numberType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "contact_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Contact contact;
+
+    @PrePersist
+    @PreUpdate
+    private void normalizeNumber() {
+        long normalized = PhoneNumbers.normalize(number);
+        normalizedNumber = normalized == PhoneNumbers.NONE ? null : normalized;
+    }
 }
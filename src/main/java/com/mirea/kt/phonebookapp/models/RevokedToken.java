@@ -0,0 +1,36 @@
+package com.mirea.kt.phonebookapp.models;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Id (jti) of a token revoked before it expired. Only needed until then, expired ones are pruned.
+ */
+@Entity
+@Table(name = "revoked_token", indexes = @Index(name = "revoked_token_expires_at_idx", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+public class RevokedToken implements Persistable<String> {
+
+    @Id
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Override
+    public String getId() {
+        return tokenId;
+    }
+
+    // Always inserted: a second revocation of the same token has to fail, not merge into the first
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -1,14 +1,17 @@
 package com.mirea.kt.phonebookapp.models;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "\"user\"")
+@Table(name = "\"user\"", indexes = @Index(name = "user_login_idx", columnList = "login", unique = true))
+// Not cached: the bulk update of contacts_version on every contact write would evict the whole region
 @Data
 @NoArgsConstructor
 public class User {
@@ -24,7 +27,9 @@ public class User {
     @Column(name = "password")
     private String password;
 
-    @OneToMany(mappedBy = "owner", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "owner", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Contact> contacts;
 
     @Column(name = "created_at")
@@ -32,4 +37,8 @@ public class User {
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // Bumped only by UserRepository.incrementContactsVersion, never written back from the entity
+    @Column(name = "contacts_version", nullable = false, updatable = false)
+    private long contactsVersion;
 }
@@ -0,0 +1,5 @@
+package com.mirea.kt.phonebookapp.models.enums;
+
+public enum ContactSortOrder {
+    ID, NAME
+}
@@ -1,9 +1,66 @@
 package com.mirea.kt.phonebookapp.repositories;
 
 import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactName;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactTag;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface ContactRepository extends JpaRepository<Contact, Integer> {
+public interface ContactRepository extends JpaRepository<Contact, Integer>, ContactRepositoryCustom {
+
+    @Query("select distinct c from Contact c left join fetch c.numbers where c.owner.id = :userId")
+    List<Contact> findAllWithNumbersByOwnerId(@Param("userId") int userId);
+
+    @Query("select distinct c from Contact c left join fetch c.numbers " +
+            "where c.owner.id = :userId and c.updateSeq > :since")
+    List<Contact> findAllWithNumbersChangedSince(@Param("userId") int userId, @Param("since") long since);
+
+    @Query("select distinct c from Contact c left join fetch c.numbers where c.id = :id and c.owner.id = :userId")
+    Optional<Contact> findWithNumbersByIdAndOwnerId(@Param("id") int id, @Param("userId") int userId);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("select c.id as id, c.name as name, c.imageName as imageName, n.number as number, " +
+            "n.numberType as numberType from Contact c left join c.numbers n " +
+            "where c.owner.id = :userId order by c.id, n.id")
+    Stream<ContactRow> streamRowsByOwnerId(@Param("userId") int userId);
+
+    @Query("select c.id as id, c.name as name from Contact c where c.owner.id = :userId")
+    List<ContactName> findNamesByOwnerId(@Param("userId") int userId);
+
+    @Query("select c.owner.id as ownerId, c.id as contactId, t as tag from Contact c join c.tags t " +
+            "where c.owner.id = :userId")
+    List<ContactTag> findTagsByOwnerId(@Param("userId") int userId);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("select c.owner.id as ownerId, c.id as contactId, t as tag from Contact c join c.tags t " +
+            "where c.owner.id = :userId order by c.id")
+    Stream<ContactTag> streamTagsByOwnerId(@Param("userId") int userId);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("select c.id from Contact c where c.owner.id = :userId and c.id > :after order by c.id")
+    List<Integer> findPageIdsOrderById(@Param("userId") int userId, @Param("after") int after, Pageable pageable);
+
+    @Query("select c.id from Contact c where c.owner.id = :userId order by c.name, c.id")
+    List<Integer> findFirstPageIdsOrderByName(@Param("userId") int userId, Pageable pageable);
+
+    @Query("select c.id from Contact c where c.owner.id = :userId " +
+            "and (c.name > :name or (c.name = :name and c.id > :after)) order by c.name, c.id")
+    List<Integer> findPageIdsOrderByName(@Param("userId") int userId, @Param("name") String name,
+                                         @Param("after") int after, Pageable pageable);
+
+    @Query("select c.name from Contact c where c.id = :id and c.owner.id = :userId")
+    Optional<String> findNameByIdAndOwnerId(@Param("id") int id, @Param("userId") int userId);
+
+    boolean existsByIdAndOwnerId(int id, int ownerId);
 }
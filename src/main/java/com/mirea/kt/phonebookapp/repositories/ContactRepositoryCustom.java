@@ -0,0 +1,15 @@
+package com.mirea.kt.phonebookapp.repositories;
+
+import com.mirea.kt.phonebookapp.models.Contact;
+
+import java.util.List;
+
+public interface ContactRepositoryCustom {
+
+    /**
+     * Unlike findAllById takes the contacts found in the second-level cache from there and selects only the rest
+     *
+     * @return contacts in the order of ids, null for the ones that are gone
+     */
+    List<Contact> findAllCachedById(List<Integer> ids);
+}
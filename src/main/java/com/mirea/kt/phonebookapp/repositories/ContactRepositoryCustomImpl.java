@@ -0,0 +1,26 @@
+package com.mirea.kt.phonebookapp.repositories;
+
+import com.mirea.kt.phonebookapp.models.Contact;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+public class ContactRepositoryCustomImpl implements ContactRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public ContactRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Contact> findAllCachedById(List<Integer> ids) {
+        Session session = entityManager.unwrap(Session.class);
+
+        // Without a cache mode multiLoad checks only the session
+        return session.byMultipleIds(Contact.class).with(session.getCacheMode()).multiLoad(ids);
+    }
+}
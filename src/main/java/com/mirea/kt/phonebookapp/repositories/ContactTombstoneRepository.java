@@ -0,0 +1,22 @@
+package com.mirea.kt.phonebookapp.repositories;
+
+import com.mirea.kt.phonebookapp.models.ContactTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ContactTombstoneRepository extends JpaRepository<ContactTombstone, Long> {
+
+    @Query("select t.contactId from ContactTombstone t where t.userId = :userId and t.deleteSeq > :since")
+    List<Integer> findContactIdsDeletedSince(@Param("userId") int userId, @Param("since") long since);
+
+    @Modifying
+    @Query("delete from ContactTombstone t where t.deletedAt < :before")
+    int deleteDeletedBefore(@Param("before") LocalDateTime before);
+}
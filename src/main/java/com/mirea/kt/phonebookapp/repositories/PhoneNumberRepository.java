@@ -1,9 +1,24 @@
 package com.mirea.kt.phonebookapp.repositories;
 
 import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.repositories.projections.NumberOwner;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface PhoneNumberRepository extends JpaRepository<PhoneNumber, Integer> {
+
+    @Query("select n.contact.id from PhoneNumber n " +
+            "where n.normalizedNumber = :number and n.contact.owner.id = :userId order by n.contact.id")
+    List<Integer> findContactIdsByNormalizedNumber(@Param("userId") int userId, @Param("number") long number,
+                                                   Pageable pageable);
+
+    @Query("select n.normalizedNumber as number, n.contact.id as contactId from PhoneNumber n " +
+            "where n.contact.owner.id = :userId and n.normalizedNumber is not null")
+    List<NumberOwner> findNumberOwnersByOwnerId(@Param("userId") int userId);
 }
@@ -1,12 +1,48 @@
 package com.mirea.kt.phonebookapp.repositories;
 
 import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactsVersion;
+import com.mirea.kt.phonebookapp.repositories.projections.UserCredentials;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByLogin(String login);
+
+    Optional<UserCredentials> findCredentialsByLogin(String login);
+
+    boolean existsByLogin(String login);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("select u.login from User u")
+    Stream<String> streamAllLogins();
+
+    Optional<ContactsVersion> findVersionById(int id);
+
+    @Query("select u.contactsVersion from User u where u.id = :id")
+    long findContactsVersionById(@Param("id") int id);
+
+    /**
+     * @return 0 for a user deleted since their token was issued, who has no contacts
+     */
+    default long findContactsVersionOrZero(int id) {
+        return findVersionById(id).map(ContactsVersion::getContactsVersion).orElse(0L);
+    }
+
+    @Modifying
+    @Query("update User u set u.contactsVersion = u.contactsVersion + 1 where u.id = :id")
+    int incrementContactsVersion(@Param("id") int id);
+
+    @Modifying
+    @Query("update User u set u.password = :password where u.login = :login")
+    int updatePassword(@Param("login") String login, @Param("password") String password);
 }
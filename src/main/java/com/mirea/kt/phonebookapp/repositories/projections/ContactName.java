@@ -0,0 +1,8 @@
+package com.mirea.kt.phonebookapp.repositories.projections;
+
+public interface ContactName {
+
+    int getId();
+
+    String getName();
+}
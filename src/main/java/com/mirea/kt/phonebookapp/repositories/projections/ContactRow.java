@@ -0,0 +1,16 @@
+package com.mirea.kt.phonebookapp.repositories.projections;
+
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+
+public interface ContactRow {
+
+    int getId();
+
+    String getName();
+
+    String getImageName();
+
+    String getNumber();
+
+    NumberType getNumberType();
+}
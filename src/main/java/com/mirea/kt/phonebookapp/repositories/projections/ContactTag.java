@@ -0,0 +1,10 @@
+package com.mirea.kt.phonebookapp.repositories.projections;
+
+public interface ContactTag {
+
+    int getOwnerId();
+
+    int getContactId();
+
+    String getTag();
+}
@@ -0,0 +1,8 @@
+package com.mirea.kt.phonebookapp.repositories.projections;
+
+public interface NumberOwner {
+
+    long getNumber();
+
+    int getContactId();
+}
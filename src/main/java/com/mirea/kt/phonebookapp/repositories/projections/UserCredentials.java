@@ -0,0 +1,10 @@
+package com.mirea.kt.phonebookapp.repositories.projections;
+
+public interface UserCredentials {
+
+    int getId();
+
+    String getLogin();
+
+    String getPassword();
+}
@@ -0,0 +1,143 @@
+package com.mirea.kt.phonebookapp.repositories.reactive;
+
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactName;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactTag;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactsVersion;
+import io.r2dbc.spi.Row;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Read-only queries of the reactive profile, the same ones the JPA repositories run for the servlet stack,
+ * written in SQL over R2DBC.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveContactRepository {
+
+    private static final String ROWS = "select c.contact_id, c.name, c.image_name, n.number, n.type " +
+            "from contact c left join phone_number n on n.contact_id = c.contact_id ";
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveContactRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<ContactsVersion> findContactsVersionById(int userId) {
+        return databaseClient.sql("select user_id, contacts_version from \"user\" where user_id = :userId")
+                .bind("userId", userId)
+                .map(row -> (ContactsVersion) new Version(
+                        row.get("user_id", Integer.class), row.get("contacts_version", Long.class)))
+                .one();
+    }
+
+    public Flux<ContactRow> streamRowsByOwnerId(int userId) {
+        return databaseClient.sql(ROWS + "where c.user_id = :userId order by c.contact_id, n.number_id")
+                .bind("userId", userId)
+                .map(ReactiveContactRepository::toContactRow)
+                .all();
+    }
+
+    public Flux<ContactRow> findRowsByIdIn(int userId, Collection<Integer> ids) {
+        return databaseClient.sql(ROWS + "where c.user_id = :userId and c.contact_id in (:ids) " +
+                        "order by c.contact_id, n.number_id")
+                .bind("userId", userId)
+                .bind("ids", ids)
+                .map(ReactiveContactRepository::toContactRow)
+                .all();
+    }
+
+    public Flux<ContactTag> streamTagsByOwnerId(int userId) {
+        return databaseClient.sql("select c.user_id, t.contact_id, t.tag from contact_tag t " +
+                        "join contact c on c.contact_id = t.contact_id where c.user_id = :userId " +
+                        "order by t.contact_id")
+                .bind("userId", userId)
+                .map(ReactiveContactRepository::toContactTag)
+                .all();
+    }
+
+    public Flux<ContactTag> findTagsByIdIn(int userId, Collection<Integer> ids) {
+        return databaseClient.sql("select c.user_id, t.contact_id, t.tag from contact_tag t " +
+                        "join contact c on c.contact_id = t.contact_id " +
+                        "where c.user_id = :userId and t.contact_id in (:ids)")
+                .bind("userId", userId)
+                .bind("ids", ids)
+                .map(ReactiveContactRepository::toContactTag)
+                .all();
+    }
+
+    public Flux<ContactName> findNamesByOwnerId(int userId) {
+        return databaseClient.sql("select contact_id, name from contact where user_id = :userId")
+                .bind("userId", userId)
+                .map(row -> (ContactName) new Name(row.get("contact_id", Integer.class),
+                        row.get("name", String.class)))
+                .all();
+    }
+
+    public Mono<Integer> findContactIdByNormalizedNumber(int userId, long number) {
+        return databaseClient.sql("select n.contact_id from phone_number n " +
+                        "join contact c on c.contact_id = n.contact_id " +
+                        "where c.user_id = :userId and n.normalized_number = :number order by n.contact_id limit 1")
+                .bind("userId", userId)
+                .bind("number", number)
+                .map(row -> row.get("contact_id", Integer.class))
+                .one();
+    }
+
+    private static ContactRow toContactRow(Row row) {
+        String type = row.get("type", String.class);
+
+        return new Contact(row.get("contact_id", Integer.class), row.get("name", String.class),
+                row.get("image_name", String.class), row.get("number", String.class),
+                type == null ? null : NumberType.valueOf(type));
+    }
+
+    private static ContactTag toContactTag(Row row) {
+        return new Tag(row.get("user_id", Integer.class), row.get("contact_id", Integer.class),
+                row.get("tag", String.class));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Version implements ContactsVersion {
+        private final int id;
+        private final long contactsVersion;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Contact implements ContactRow {
+        private final int id;
+        private final String name;
+        private final String imageName;
+        private final String number;
+        private final NumberType numberType;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Tag implements ContactTag {
+        private final int ownerId;
+        private final int contactId;
+        private final String tag;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Name implements ContactName {
+        private final int id;
+        private final String name;
+    }
+}
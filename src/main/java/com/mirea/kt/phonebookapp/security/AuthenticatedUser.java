@@ -0,0 +1,23 @@
+package com.mirea.kt.phonebookapp.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.security.Principal;
+
+/**
+ * Principal put into the security context from the access token alone. The id is what contact queries
+ * need, so controllers take it from here instead of loading the user.
+ */
+@Getter
+@AllArgsConstructor
+public class AuthenticatedUser implements Principal {
+
+    private final int id;
+    private final String login;
+
+    @Override
+    public String getName() {
+        return login;
+    }
+}
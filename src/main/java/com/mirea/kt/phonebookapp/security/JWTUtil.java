@@ -3,38 +3,195 @@ package com.mirea.kt.phonebookapp.security;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.ZonedDateTime;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Access tokens are short-lived and trusted without a user lookup; refresh tokens live long, are exchanged
+ * for a new pair once (see {@link RevokedTokens}) and are only accepted by /refresh and /logout.
+ */
 @Component
-public class JWTUtil {
+public class JWTUtil implements MeterBinder {
 
-    @Value("${jwt_secret}")
-    private String secret;
+    private static final String SUBJECT = "User details";
+    private static final String ISSUER = "PhonebookApp";
+    private static final String ACCESS = "access";
+    private static final String REFRESH = "refresh";
 
-    public String generateToken(String login) {
-        Date expirationDate = Date.from(ZonedDateTime.now().plusMinutes(60).toInstant());
+    private final Algorithm algorithm;
+    private final JWTVerifier accessVerifier;
+    private final JWTVerifier refreshVerifier;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+    private final RevokedTokens revokedTokens;
+    private final Cache<ByteBuffer, TokenClaims> verifiedTokens;
+
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder verificationNanos = new LongAdder();
+
+    @Autowired
+    public JWTUtil(@Value("${jwt_secret}") String secret,
+                   @Value("${jwt_verified_cache_size:10000}") long verifiedCacheSize,
+                   @Value("${jwt_access_ttl_minutes:15}") long accessTtlMinutes,
+                   @Value("${jwt_refresh_ttl_days:30}") long refreshTtlDays,
+                   RevokedTokens revokedTokens) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.accessVerifier = verifier(ACCESS);
+        this.refreshVerifier = verifier(REFRESH);
+        this.accessTtl = Duration.ofMinutes(accessTtlMinutes);
+        this.refreshTtl = Duration.ofDays(refreshTtlDays);
+        this.revokedTokens = revokedTokens;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Only signature checks are timed: tokens found in the verified cache cost a digest and a lookup.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("phonebook.jwt.verification", this,
+                        jwtUtil -> jwtUtil.verifications.sum(), jwtUtil -> jwtUtil.verificationNanos.sum(),
+                        TimeUnit.NANOSECONDS)
+                .description("HMAC verifications of access and refresh tokens")
+                .register(registry);
+        CaffeineCacheMetrics.monitor(registry, verifiedTokens, "jwt_verified_tokens");
+    }
+
+    public TokenPair generateTokens(int userId, String login) {
+        return new TokenPair(generateToken(userId, login, ACCESS, accessTtl),
+                generateToken(userId, login, REFRESH, refreshTtl));
+    }
+
+    /**
+     * @throws JWTVerificationException if the token is malformed, expired, not an access token or revoked
+     */
+    public TokenClaims validateAccessToken(String token) {
+        ByteBuffer key = digest(token);
+        TokenClaims claims = verifiedTokens.getIfPresent(key);
+
+        if (claims == null) {
+            claims = verify(accessVerifier, token);
+            verifiedTokens.put(key, claims);
+        }
+
+        checkNotRevoked(claims);
+        return claims;
+    }
+
+    /**
+     * @throws JWTVerificationException if the token is malformed, expired, not a refresh token or revoked
+     */
+    public TokenClaims validateRefreshToken(String token) {
+        TokenClaims claims = verify(refreshVerifier, token);
+
+        checkNotRevoked(claims);
+        return claims;
+    }
+
+    private String generateToken(int userId, String login, String type, Duration ttl) {
+        Date issuedAt = new Date();
 
         return JWT.create()
-                .withSubject("User details")
+                .withSubject(SUBJECT)
+                .withClaim("userId", userId)
                 .withClaim("login", login)
-                .withIssuedAt(new Date())
-                .withIssuer("PhonebookApp")
-                .withExpiresAt(expirationDate)
-                .sign(Algorithm.HMAC256(secret));
+                .withClaim("type", type)
+                .withJWTId(UUID.randomUUID().toString())
+                .withIssuedAt(issuedAt)
+                .withIssuer(ISSUER)
+                .withExpiresAt(new Date(issuedAt.getTime() + ttl.toMillis()))
+                .sign(algorithm);
     }
 
-    public String validateTokenAndRetrieveClaim(String token) {
-        JWTVerifier verifier = JWT.require(Algorithm.HMAC256(secret))
-                .withSubject("User details")
-                .withIssuer("PhonebookApp")
+    private JWTVerifier verifier(String type) {
+        return JWT.require(algorithm)
+                .withSubject(SUBJECT)
+                .withIssuer(ISSUER)
+                .withClaim("type", type)
                 .build();
+    }
+
+    private TokenClaims verify(JWTVerifier verifier, String token) {
+        long startedAt = System.nanoTime();
+
+        try {
+            return toClaims(verifier.verify(token));
+        } finally {
+            verificationNanos.add(System.nanoTime() - startedAt);
+            verifications.increment();
+        }
+    }
+
+    private void checkNotRevoked(TokenClaims claims) {
+        if (revokedTokens.isRevoked(claims.getTokenId())) {
+            throw new JWTVerificationException("Token is revoked");
+        }
+    }
+
+    private static TokenClaims toClaims(DecodedJWT jwt) {
+        Integer userId = jwt.getClaim("userId").asInt();
+
+        if (jwt.getId() == null || userId == null) {
+            throw new JWTVerificationException("Token has no id or user id");
+        }
+
+        try {
+            return new TokenClaims(userId, jwt.getClaim("login").asString(), UUID.fromString(jwt.getId()),
+                    jwt.getExpiresAt().getTime());
+        } catch (IllegalArgumentException e) {
+            throw new JWTVerificationException("Token id is not a UUID", e);
+        }
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class UntilTokenExpires implements Expiry<ByteBuffer, TokenClaims> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, TokenClaims value, long currentTime) {
+            long millisLeft = value.getExpiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(millisLeft, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, TokenClaims value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
 
-        DecodedJWT jwt = verifier.verify(token);
-        return jwt.getClaim("login").asString();
+        @Override
+        public long expireAfterRead(ByteBuffer key, TokenClaims value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,105 @@
+package com.mirea.kt.phonebookapp.security;
+
+import com.mirea.kt.phonebookapp.models.RevokedToken;
+import com.mirea.kt.phonebookapp.repositories.RevokedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids of tokens revoked before their expiry, checked on every request without the database.
+ * Only tokens that are still valid are kept, so the set stays as small as the number of logouts and
+ * refreshes within one refresh token lifetime. Stored in revoked_token and loaded before the server
+ * starts taking requests; revocations on other instances are seen after their restart.
+ */
+@Component
+public class RevokedTokens implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedTokens.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final Map<UUID, Long> expiresAtMillis = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RevokedTokens(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            for (RevokedToken token : revokedTokenRepository.findAllByExpiresAtAfter(LocalDateTime.now())) {
+                expiresAtMillis.put(UUID.fromString(token.getTokenId()), toMillis(token.getExpiresAt()));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not load revoked tokens on startup", e);
+            return;
+        }
+
+        log.info("Loaded {} revoked tokens", expiresAtMillis.size());
+    }
+
+    public boolean isRevoked(UUID tokenId) {
+        return expiresAtMillis.containsKey(tokenId);
+    }
+
+    /**
+     * @return false if the token was already revoked, so of two requests with one refresh token only one wins
+     * @throws DataAccessException if the revocation could not be stored, the token stays valid then
+     */
+    public boolean revoke(TokenClaims claims) {
+        // Claimed in memory first, so of two requests on this instance only one goes to the database
+        if (expiresAtMillis.putIfAbsent(claims.getTokenId(), claims.getExpiresAtMillis()) != null) {
+            return false;
+        }
+
+        RevokedToken token = new RevokedToken();
+        token.setTokenId(claims.getTokenId().toString());
+        token.setExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(claims.getExpiresAtMillis()),
+                ZoneId.systemDefault()));
+
+        try {
+            revokedTokenRepository.saveAndFlush(token);
+        } catch (DataIntegrityViolationException e) {
+            // Revoked on another instance
+            return false;
+        } catch (RuntimeException e) {
+            // Revoked only here it would be valid again after a restart and on other instances
+            expiresAtMillis.remove(claims.getTokenId());
+            throw e;
+        }
+
+        return true;
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${revoked_token_prune_interval_ms:3600000}",
+            initialDelayString = "${revoked_token_prune_interval_ms:3600000}")
+    public int prune() {
+        long now = System.currentTimeMillis();
+        expiresAtMillis.values().removeIf(expiresAt -> expiresAt < now);
+
+        return revokedTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+    }
+
+    public int size() {
+        return expiresAtMillis.size();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
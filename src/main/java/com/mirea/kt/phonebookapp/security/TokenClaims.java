@@ -0,0 +1,19 @@
+package com.mirea.kt.phonebookapp.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * What a verified token says: everything the request path needs, so no user lookup is done per request.
+ */
+@Getter
+@AllArgsConstructor
+public class TokenClaims {
+
+    private final int userId;
+    private final String login;
+    private final UUID tokenId;
+    private final long expiresAtMillis;
+}
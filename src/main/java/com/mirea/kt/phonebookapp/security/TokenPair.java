@@ -0,0 +1,12 @@
+package com.mirea.kt.phonebookapp.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TokenPair {
+
+    private final String accessToken;
+    private final String refreshToken;
+}
@@ -0,0 +1,12 @@
+package com.mirea.kt.phonebookapp.services;
+
+import com.mirea.kt.phonebookapp.security.TokenPair;
+
+public interface AuthTokenService {
+
+    TokenPair issueTokens(int userId, String login);
+
+    TokenPair refreshTokens(String refreshToken);
+
+    void revokeTokens(String refreshToken, String accessToken);
+}
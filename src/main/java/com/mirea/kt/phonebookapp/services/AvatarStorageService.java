@@ -0,0 +1,18 @@
+package com.mirea.kt.phonebookapp.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+public interface AvatarStorageService {
+
+    /**
+     * @return name of the stored image: hex SHA-256 of its bytes and the extension of its format
+     */
+    String store(InputStream image) throws IOException;
+
+    /**
+     * @return the stored file, or null if the name is malformed or nothing is stored under it
+     */
+    Path find(String name);
+}
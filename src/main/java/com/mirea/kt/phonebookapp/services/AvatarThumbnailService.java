@@ -0,0 +1,19 @@
+package com.mirea.kt.phonebookapp.services;
+
+import java.nio.file.Path;
+
+public interface AvatarThumbnailService {
+
+    /**
+     * Queues generation of every thumbnail size for a stored avatar. Never blocks: an avatar already queued
+     * is not queued twice, and when the queue is full the request is dropped until the next one.
+     */
+    void requestThumbnails(String name);
+
+    boolean isSupportedSize(int size);
+
+    /**
+     * @return the thumbnail, or null if it is not generated yet, in which case it is requested
+     */
+    Path findThumbnail(String name, int size);
+}
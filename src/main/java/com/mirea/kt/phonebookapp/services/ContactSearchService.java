@@ -0,0 +1,10 @@
+package com.mirea.kt.phonebookapp.services;
+
+import java.util.List;
+
+public interface ContactSearchService {
+
+    List<Integer> searchByNamePrefix(int userId, String prefix, int limit);
+
+    long estimatedIndexSize(int userId);
+}
@@ -1,19 +1,41 @@
 package com.mirea.kt.phonebookapp.services;
 
 import com.mirea.kt.phonebookapp.models.Contact;
-import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.models.enums.ContactSortOrder;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactTag;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ContactService {
 
-    boolean addContact(User user, Contact contact);
+    boolean addContact(int userId, Contact contact);
 
-    boolean updateContact(User user, Contact contact);
+    int importContacts(int userId, Iterator<Contact> contacts);
 
-    boolean deleteContact(User user, int id);
+    boolean updateContact(int userId, Contact contact);
 
-    List<Contact> getContacts(User user);
+    boolean deleteContact(int userId, int id);
+
+    boolean setImageName(int userId, int id, String imageName);
+
+    List<Contact> getContacts(int userId);
+
+    List<Contact> getContactsByIds(List<Integer> ids);
+
+    List<Contact> getContactsPage(int userId, Integer after, int limit, ContactSortOrder sortOrder);
+
+    void forEachContactRow(int userId, Consumer<ContactRow> consumer);
+
+    /**
+     * Like {@link #forEachContactRow(int, Consumer)}, and passes the tags of each contact to {@code tagConsumer}
+     * right before its first row. Tags come from a second cursor, so neither is held in memory.
+     */
+    void forEachContactRow(int userId, Consumer<ContactTag> tagConsumer, Consumer<ContactRow> consumer);
 
     Contact getContactById(int id);
+
+    boolean isOwnContact(int userId, int id);
 }
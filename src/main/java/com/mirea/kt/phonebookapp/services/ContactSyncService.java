@@ -0,0 +1,11 @@
+package com.mirea.kt.phonebookapp.services;
+
+import com.mirea.kt.phonebookapp.models.ContactChanges;
+import com.mirea.kt.phonebookapp.util.ChangeToken;
+
+public interface ContactSyncService {
+
+    ContactChanges getChangesSince(int userId, ChangeToken since);
+
+    int pruneTombstones();
+}
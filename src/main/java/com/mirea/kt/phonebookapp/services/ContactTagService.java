@@ -0,0 +1,10 @@
+package com.mirea.kt.phonebookapp.services;
+
+import com.mirea.kt.phonebookapp.util.TagExpression;
+
+import java.util.List;
+
+public interface ContactTagService {
+
+    List<Integer> filterByTags(int userId, TagExpression expression, Integer after, int limit);
+}
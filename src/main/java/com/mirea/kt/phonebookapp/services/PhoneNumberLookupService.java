@@ -0,0 +1,6 @@
+package com.mirea.kt.phonebookapp.services;
+
+public interface PhoneNumberLookupService {
+
+    Integer findContactIdByNumber(int userId, String number);
+}
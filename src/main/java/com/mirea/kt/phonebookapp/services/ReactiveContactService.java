@@ -0,0 +1,28 @@
+package com.mirea.kt.phonebookapp.services;
+
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactTag;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactsVersion;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface ReactiveContactService {
+
+    Mono<ContactsVersion> getContactsVersion(int userId);
+
+    Flux<ContactRow> streamContactRows(int userId);
+
+    Flux<ContactRow> getContactRowsByIds(int userId, List<Integer> ids);
+
+    Flux<ContactTag> streamContactTags(int userId);
+
+    Mono<Map<Integer, Set<String>>> getContactTags(int userId, List<Integer> ids);
+
+    Mono<List<Integer>> searchByNamePrefix(ContactsVersion version, String prefix, int limit);
+
+    Mono<Integer> findContactIdByNumber(int userId, String number);
+}
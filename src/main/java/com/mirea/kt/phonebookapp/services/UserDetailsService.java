@@ -2,18 +2,21 @@ package com.mirea.kt.phonebookapp.services;
 
 import com.mirea.kt.phonebookapp.models.User;
 import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import com.mirea.kt.phonebookapp.repositories.projections.UserCredentials;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import javax.transaction.Transactional;
 import java.util.Optional;
 
 @Service
-public class UserDetailsService implements org.springframework.security.core.userdetails.UserDetailsService {
+public class UserDetailsService implements org.springframework.security.core.userdetails.UserDetailsService,
+        UserDetailsPasswordService {
 
     private final UserRepository userRepository;
-
     @Autowired
     public UserDetailsService(UserRepository userRepository) {
         this.userRepository = userRepository;
@@ -21,11 +24,34 @@ public class UserDetailsService implements org.springframework.security.core.use
 
     @Override
     public UserDetails loadUserByUsername(String login) throws UsernameNotFoundException {
-        Optional<User> user = userRepository.findByLogin(login);
+        Optional<UserCredentials> credentials = userRepository.findCredentialsByLogin(login);
 
-        if (user.isEmpty()) {
+        if (credentials.isEmpty()) {
             throw new UsernameNotFoundException("User not found!");
         }
-        return new com.mirea.kt.phonebookapp.security.UserDetails(user.get());
+
+        User user = new User();
+        user.setId(credentials.get().getId());
+        user.setLogin(credentials.get().getLogin());
+        user.setPassword(credentials.get().getPassword());
+        return new com.mirea.kt.phonebookapp.security.UserDetails(user);
+    }
+
+    /**
+     * Called after a successful login whose stored hash has another BCrypt cost than configured,
+     * with the password re-hashed at the current cost.
+     */
+    @Transactional
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.updatePassword(userDetails.getUsername(), newPassword);
+
+        User user = new User();
+        user.setLogin(userDetails.getUsername());
+        user.setPassword(newPassword);
+        if (userDetails instanceof com.mirea.kt.phonebookapp.security.UserDetails) {
+            user.setId(((com.mirea.kt.phonebookapp.security.UserDetails) userDetails).getUser().getId());
+        }
+        return new com.mirea.kt.phonebookapp.security.UserDetails(user);
     }
 }
@@ -1,6 +1,7 @@
 package com.mirea.kt.phonebookapp.services;
 
 import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactsVersion;
 
 public interface UserService {
 
@@ -11,4 +12,10 @@ public interface UserService {
     void deleteUser(User user);
 
     User getUserByLogin(String login);
+
+    boolean isLoginTaken(String login);
+
+    void loadLoginFilter();
+
+    ContactsVersion getContactsVersion(int userId);
 }
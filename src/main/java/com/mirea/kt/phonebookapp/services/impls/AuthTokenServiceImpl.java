@@ -0,0 +1,74 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import com.mirea.kt.phonebookapp.security.JWTUtil;
+import com.mirea.kt.phonebookapp.security.RevokedTokens;
+import com.mirea.kt.phonebookapp.security.TokenClaims;
+import com.mirea.kt.phonebookapp.security.TokenPair;
+import com.mirea.kt.phonebookapp.services.AuthTokenService;
+import com.mirea.kt.phonebookapp.util.exceptions.InvalidTokenException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class AuthTokenServiceImpl implements AuthTokenService {
+
+    private final JWTUtil jwtUtil;
+    private final RevokedTokens revokedTokens;
+    private final UserRepository userRepository;
+
+    @Autowired
+    public AuthTokenServiceImpl(JWTUtil jwtUtil, RevokedTokens revokedTokens, UserRepository userRepository) {
+        this.jwtUtil = jwtUtil;
+        this.revokedTokens = revokedTokens;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public TokenPair issueTokens(int userId, String login) {
+        return jwtUtil.generateTokens(userId, login);
+    }
+
+    /**
+     * Each refresh token is exchanged once: it is revoked here, and presenting it again fails.
+     * This is also the only place where a deleted user loses access before the access token expires.
+     */
+    @Override
+    public TokenPair refreshTokens(String refreshToken) {
+        TokenClaims claims = validateRefreshToken(refreshToken);
+
+        if (!userRepository.existsById(claims.getUserId()) || !revokedTokens.revoke(claims)) {
+            throw new InvalidTokenException();
+        }
+
+        return jwtUtil.generateTokens(claims.getUserId(), claims.getLogin());
+    }
+
+    @Override
+    public void revokeTokens(String refreshToken, String accessToken) {
+        TokenClaims refreshClaims = validateRefreshToken(refreshToken);
+
+        if (accessToken != null) {
+            try {
+                TokenClaims accessClaims = jwtUtil.validateAccessToken(accessToken);
+
+                if (accessClaims.getUserId() == refreshClaims.getUserId()) {
+                    revokedTokens.revoke(accessClaims);
+                }
+            } catch (JWTVerificationException ignored) {
+                // Expired or already revoked, nothing to do
+            }
+        }
+
+        revokedTokens.revoke(refreshClaims);
+    }
+
+    private TokenClaims validateRefreshToken(String refreshToken) {
+        try {
+            return jwtUtil.validateRefreshToken(refreshToken);
+        } catch (JWTVerificationException e) {
+            throw new InvalidTokenException();
+        }
+    }
+}
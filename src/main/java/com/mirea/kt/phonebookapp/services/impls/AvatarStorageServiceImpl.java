@@ -0,0 +1,116 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.mirea.kt.phonebookapp.services.AvatarStorageService;
+import com.mirea.kt.phonebookapp.util.ImageFormat;
+import com.mirea.kt.phonebookapp.util.exceptions.AvatarTooLargeException;
+import com.mirea.kt.phonebookapp.util.exceptions.InvalidParamsException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Avatars are stored on local disk under the SHA-256 of their bytes, in {@code <dir>/<first two hex digits>/},
+ * so a file never changes once written and uploading the same image again stores nothing new.
+ * Files are not deleted when no contact points at them anymore.
+ */
+@Service
+public class AvatarStorageServiceImpl implements AvatarStorageService {
+
+    private static final Pattern NAME = Pattern.compile("[0-9a-f]{64}\\.[a-z]{3,4}");
+
+    private final Path root;
+    private final long maxBytes;
+
+    @Autowired
+    public AvatarStorageServiceImpl(@Value("${avatar_storage_dir:avatars}") String root,
+                                    @Value("${avatar_max_bytes:5242880}") long maxBytes) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @throws AvatarTooLargeException if the image is longer than avatar_max_bytes
+     * @throws InvalidParamsException if the bytes are not a PNG, JPEG, GIF or WebP image
+     */
+    @Override
+    public String store(InputStream image) throws IOException {
+        Files.createDirectories(root);
+        Path upload = Files.createTempFile(root, "upload-", ".tmp");
+
+        try {
+            MessageDigest digest = sha256();
+            long length;
+
+            // One byte over the limit is enough to know the image is too large
+            try (InputStream in = new DigestInputStream(new BoundedInputStream(image, maxBytes + 1), digest)) {
+                length = Files.copy(in, upload, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            if (length > maxBytes) {
+                throw new AvatarTooLargeException();
+            }
+
+            ImageFormat format = detectFormat(upload);
+            if (format == null) {
+                throw new InvalidParamsException();
+            }
+
+            String name = HexFormat.of().formatHex(digest.digest()) + "." + format.getExtension();
+            Path stored = resolve(name);
+
+            if (!Files.exists(stored)) {
+                Files.createDirectories(stored.getParent());
+                // Same name means same bytes, so a concurrent upload of the image replacing this one is harmless
+                Files.move(upload, stored, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            return name;
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    @Override
+    public Path find(String name) {
+        if (!NAME.matcher(name).matches() || ImageFormat.fromExtension(name.substring(65)) == null) {
+            return null;
+        }
+
+        Path stored = resolve(name);
+        return Files.isRegularFile(stored) ? stored : null;
+    }
+
+    private Path resolve(String name) {
+        return root.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    private static ImageFormat detectFormat(Path file) throws IOException {
+        byte[] header = new byte[ImageFormat.HEADER_LENGTH];
+
+        try (InputStream in = Files.newInputStream(file)) {
+            return ImageFormat.detect(header, IOUtils.read(in, header));
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
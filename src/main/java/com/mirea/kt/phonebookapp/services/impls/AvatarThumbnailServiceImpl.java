@@ -0,0 +1,264 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mirea.kt.phonebookapp.services.AvatarStorageService;
+import com.mirea.kt.phonebookapp.services.AvatarThumbnailService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Square, center-cropped thumbnails of every avatar in {@code avatar_thumbnail_sizes}, generated in the
+ * background on a fixed pool with a bounded queue. Thumbnails are stored like the originals, under
+ * {@code <dir>/<size>/<first two hex digits>/<hash>.<ext>}: JPEG for JPEG avatars, PNG for the rest.
+ * Images ImageIO can not read (WebP) or larger than avatar_thumbnail_max_pixels get no thumbnails.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AvatarThumbnailServiceImpl implements AvatarThumbnailService, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AvatarThumbnailServiceImpl.class);
+
+    private final AvatarStorageService avatarStorageService;
+    private final Path root;
+    private final int[] sizes;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final Cache<String, Boolean> unsupported = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Autowired
+    public AvatarThumbnailServiceImpl(AvatarStorageService avatarStorageService,
+                                      @Value("${avatar_thumbnail_dir:avatars/thumbnails}") String root,
+                                      @Value("${avatar_thumbnail_sizes:64,256}") int[] sizes,
+                                      @Value("${avatar_thumbnail_max_pixels:40000000}") long maxPixels,
+                                      @Value("${avatar_thumbnail_threads:2}") int threads,
+                                      @Value("${avatar_thumbnail_queue_size:100}") int queueSize) {
+        this.avatarStorageService = avatarStorageService;
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.sizes = sizes.clone();
+        this.maxPixels = maxPixels;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public void requestThumbnails(String name) {
+        if (unsupported.getIfPresent(name) != null || !queued.add(name)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> generate(name));
+        } catch (RejectedExecutionException e) {
+            // Requested again by the next download of a missing thumbnail
+            queued.remove(name);
+            rejected.increment();
+        }
+    }
+
+    @Override
+    public boolean isSupportedSize(int size) {
+        return Arrays.stream(sizes).anyMatch(supported -> supported == size);
+    }
+
+    @Override
+    public Path findThumbnail(String name, int size) {
+        Path thumbnail = resolve(name, size);
+
+        if (Files.isRegularFile(thumbnail)) {
+            return thumbnail;
+        }
+
+        requestThumbnails(name);
+        return null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("phonebook.avatar.thumbnails.generated", generated, LongAdder::sum)
+                .description("Avatars whose thumbnails were generated")
+                .register(registry);
+        FunctionCounter.builder("phonebook.avatar.thumbnails.rejected", rejected, LongAdder::sum)
+                .description("Thumbnail requests dropped because the queue was full")
+                .register(registry);
+        Gauge.builder("phonebook.avatar.thumbnails.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Avatars waiting for thumbnails")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void generate(String name) {
+        try {
+            Path original = avatarStorageService.find(name);
+            if (original == null) {
+                return;
+            }
+
+            BufferedImage image = null;
+            boolean written = false;
+            boolean jpeg = name.endsWith(".jpg");
+
+            for (int size : sizes) {
+                Path thumbnail = resolve(name, size);
+                if (Files.exists(thumbnail)) {
+                    continue;
+                }
+
+                if (image == null) {
+                    image = decode(original);
+
+                    if (image == null) {
+                        unsupported.put(name, Boolean.TRUE);
+                        return;
+                    }
+                }
+
+                write(thumbnail(image, size, jpeg), jpeg ? "jpg" : "png", thumbnail);
+                written = true;
+            }
+
+            if (written) {
+                generated.increment();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not generate thumbnails of avatar {}", name, e);
+        } finally {
+            queued.remove(name);
+        }
+    }
+
+    /**
+     * Decodes at no less than twice the largest thumbnail rather than at full size, skipping rows and columns,
+     * so a large photo costs a fraction of its pixels in time and memory.
+     *
+     * @return null if the format can not be read, the image is corrupt or too large
+     */
+    private BufferedImage decode(Path original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                if ((long) width * height > maxPixels) {
+                    return null;
+                }
+
+                int largest = Arrays.stream(sizes).max().orElse(1);
+                int subsampling = Math.max(1, Math.min(width, height) / (2 * largest));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } catch (IIOException e) {
+                log.debug("Could not decode avatar {}", original, e);
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Center square of the image scaled to {@code size}, never upscaled
+     */
+    private static BufferedImage thumbnail(BufferedImage image, int size, boolean opaque) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        int target = Math.min(size, side);
+        int x = (image.getWidth() - side) / 2;
+        int y = (image.getHeight() - side) / 2;
+
+        BufferedImage thumbnail = new BufferedImage(target, target,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, target, target, x, y, x + side, y + side, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return thumbnail;
+    }
+
+    private static void write(BufferedImage thumbnail, String format, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "thumbnail-", ".tmp");
+
+        try {
+            if (!ImageIO.write(thumbnail, format, temp.toFile())) {
+                throw new IOException("No ImageIO writer for " + format);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path resolve(String name, int size) {
+        String hash = name.substring(0, name.indexOf('.'));
+        String extension = name.endsWith(".jpg") ? "jpg" : "png";
+        return root.resolve(String.valueOf(size)).resolve(name.substring(0, 2)).resolve(hash + "." + extension);
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger count = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, "avatar-thumbnails-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
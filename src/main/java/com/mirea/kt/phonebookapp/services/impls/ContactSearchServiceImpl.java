@@ -0,0 +1,84 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.mirea.kt.phonebookapp.events.ContactChangedEvent;
+import com.mirea.kt.phonebookapp.repositories.ContactRepository;
+import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactName;
+import com.mirea.kt.phonebookapp.services.ContactSearchService;
+import com.mirea.kt.phonebookapp.util.ContactNameIndex;
+import com.mirea.kt.phonebookapp.util.NameNormalizer;
+import com.mirea.kt.phonebookapp.util.VersionedIndexCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+@Service
+public class ContactSearchServiceImpl implements ContactSearchService, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ContactSearchServiceImpl.class);
+
+    private final ContactRepository contactRepository;
+    private final VersionedIndexCache<ContactNameIndex> indexes;
+
+    @Autowired
+    public ContactSearchServiceImpl(ContactRepository contactRepository, UserRepository userRepository,
+                                    @Value("${contact_search_max_bytes:67108864}") long maxBytes,
+                                    @Value("${contact_search_ttl_minutes:30}") long ttlMinutes) {
+        this.contactRepository = contactRepository;
+        this.indexes = new VersionedIndexCache<>(maxBytes, ttlMinutes, ContactNameIndex::estimatedSize,
+                userRepository::findContactsVersionOrZero);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        indexes.monitor(registry, "contact_name_index");
+    }
+
+    @Override
+    public List<Integer> searchByNamePrefix(int userId, String prefix, int limit) {
+        return indexes.get(userId, this::buildIndex).search(NameNormalizer.normalize(prefix), limit);
+    }
+
+    @Override
+    public long estimatedIndexSize(int userId) {
+        ContactNameIndex index = indexes.getIfPresent(userId);
+        return index == null ? 0 : index.estimatedSize();
+    }
+
+    @TransactionalEventListener
+    public void onContactChanged(ContactChangedEvent event) {
+        if (event.isBulk()) {
+            indexes.invalidate(event.getUserId());
+            return;
+        }
+
+        indexes.apply(event.getUserId(), event.getVersion(), index -> {
+            if (event.getBefore() != null) {
+                index.remove(event.getBefore().getId(), event.getBefore().getName());
+            }
+
+            if (event.getAfter() != null) {
+                index.add(event.getAfter().getId(), event.getAfter().getName());
+            }
+        });
+    }
+
+    private ContactNameIndex buildIndex(int userId) {
+        ContactNameIndex index = new ContactNameIndex();
+
+        for (ContactName contact : contactRepository.findNamesByOwnerId(userId)) {
+            index.add(contact.getId(), contact.getName());
+        }
+
+        log.debug("Built contact name index for user {}: {} names, ~{} bytes",
+                userId, index.size(), index.estimatedSize());
+        return index;
+    }
+}
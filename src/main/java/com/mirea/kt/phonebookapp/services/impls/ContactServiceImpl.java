@@ -1,90 +1,362 @@
 package com.mirea.kt.phonebookapp.services.impls;
 
+import com.mirea.kt.phonebookapp.events.ContactChangedEvent;
+import com.mirea.kt.phonebookapp.events.ContactSnapshot;
 import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.ContactTombstone;
 import com.mirea.kt.phonebookapp.models.PhoneNumber;
 import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.models.enums.ContactSortOrder;
 import com.mirea.kt.phonebookapp.repositories.ContactRepository;
+import com.mirea.kt.phonebookapp.repositories.ContactTombstoneRepository;
 import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactTag;
 import com.mirea.kt.phonebookapp.services.ContactService;
+import com.mirea.kt.phonebookapp.util.exceptions.UserNotFoundException;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ContactServiceImpl implements ContactService {
 
     private final ContactRepository contactRepository;
     private final UserRepository userRepository;
+    private final ContactTombstoneRepository tombstoneRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int IMPORT_FLUSH_INTERVAL = 500;
+    private static final String METRIC = "phonebook.contact.service";
 
     @Autowired
-    public ContactServiceImpl(ContactRepository contactRepository, UserRepository userRepository) {
+    public ContactServiceImpl(ContactRepository contactRepository, UserRepository userRepository,
+                              ContactTombstoneRepository tombstoneRepository, EntityManager entityManager,
+                              ApplicationEventPublisher eventPublisher) {
         this.contactRepository = contactRepository;
         this.userRepository = userRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
+    @Timed(METRIC)
     @Override
-    public boolean addContact(User user, Contact contact) {
-        if (contact == null || user == null) {
+    public boolean addContact(int userId, Contact contact) {
+        if (contact == null) {
             return false;
         }
 
-        if (user.getContacts().contains(contact)) {
-            return false;
+        contact.setOwner(entityManager.getReference(User.class, userId));
+        contact.setUpdateSeq(nextContactsVersion(userId));
+
+        for (PhoneNumber number : contact.getNumbers()) {
+            number.setContact(contact);
         }
 
-        if (!contact.getNumbers().isEmpty()) {
+        contactRepository.save(contact);
+        eventPublisher.publishEvent(ContactChangedEvent.created(userId, contact.getUpdateSeq(),
+                ContactSnapshot.of(contact)));
+        return true;
+    }
+
+    @Transactional
+    @Timed(METRIC)
+    @Override
+    public int importContacts(int userId, Iterator<Contact> contacts) {
+        int imported = 0;
+        long version = 0;
+
+        while (contacts.hasNext()) {
+            Contact contact = contacts.next();
+
+            if (imported == 0) {
+                version = nextContactsVersion(userId);
+            }
+
+            contact.setOwner(entityManager.getReference(User.class, userId));
+            contact.setUpdateSeq(version);
+
             for (PhoneNumber number : contact.getNumbers()) {
                 number.setContact(contact);
             }
+
+            entityManager.persist(contact);
+
+            if (++imported % IMPORT_FLUSH_INTERVAL == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
         }
 
-        user.getContacts().add(contact);
-        userRepository.save(user);
-        return true;
+        if (imported > 0) {
+            eventPublisher.publishEvent(ContactChangedEvent.bulkChanged(userId, version));
+        }
+
+        return imported;
     }
 
     @Transactional
+    @Timed(METRIC)
     @Override
-    public boolean updateContact(User user, Contact contact) {
-        if (contact == null || user == null) {
+    public boolean updateContact(int userId, Contact contact) {
+        if (contact == null) {
             return false;
         }
 
-        long count = user.getContacts().stream().filter(x -> x.getId() == contact.getId()).count();
+        Optional<Contact> found = contactRepository.findWithNumbersByIdAndOwnerId(contact.getId(), userId);
 
-        if (count == 0) {
+        if (found.isEmpty()) {
             return false;
         }
 
-        user.getContacts().removeIf(x -> x.getId() == contact.getId());
-        user.getContacts().add(contact);
-        userRepository.save(user);
+        Contact old = found.get();
+        ContactSnapshot before = ContactSnapshot.of(old);
+
+        old.setUpdateSeq(nextContactsVersion(userId));
+        old.setName(contact.getName());
+        old.setImageName(contact.getImageName());
+        mergeNumbers(old, contact.getNumbers());
+
+        Set<String> tags = contact.getTags() == null ? Set.of() : contact.getTags();
+        if (old.getTags() == null) {
+            old.setTags(new HashSet<>(tags));
+        } else {
+            old.getTags().retainAll(tags);
+            old.getTags().addAll(tags);
+        }
+
+        eventPublisher.publishEvent(ContactChangedEvent.updated(userId, old.getUpdateSeq(), before,
+                ContactSnapshot.of(old)));
         return true;
     }
 
     @Transactional
+    @Timed(METRIC)
     @Override
-    public boolean deleteContact(User user, int id) {
-        if (user == null) {
+    public boolean deleteContact(int userId, int id) {
+        Optional<Contact> old = contactRepository.findWithNumbersByIdAndOwnerId(id, userId);
+
+        if (old.isEmpty()) {
             return false;
         }
 
-        if (!user.getContacts().removeIf(x -> x.getId() == id)) {
+        ContactSnapshot before = ContactSnapshot.of(old.get());
+
+        ContactTombstone tombstone = new ContactTombstone();
+        tombstone.setUserId(userId);
+        tombstone.setContactId(id);
+        tombstone.setDeleteSeq(nextContactsVersion(userId));
+        tombstone.setDeletedAt(LocalDateTime.now());
+
+        contactRepository.delete(old.get());
+        tombstoneRepository.save(tombstone);
+        eventPublisher.publishEvent(ContactChangedEvent.deleted(userId, tombstone.getDeleteSeq(), before));
+        return true;
+    }
+
+    @Transactional
+    @Timed(METRIC)
+    @Override
+    public boolean setImageName(int userId, int id, String imageName) {
+        Optional<Contact> found = contactRepository.findWithNumbersByIdAndOwnerId(id, userId);
+
+        if (found.isEmpty()) {
             return false;
         }
 
-        contactRepository.deleteById(id);
+        Contact contact = found.get();
+        ContactSnapshot before = ContactSnapshot.of(contact);
+
+        contact.setUpdateSeq(nextContactsVersion(userId));
+        contact.setImageName(imageName);
+
+        eventPublisher.publishEvent(ContactChangedEvent.updated(userId, contact.getUpdateSeq(), before,
+                ContactSnapshot.of(contact)));
         return true;
     }
 
+    /**
+     * Bumps the user's contacts version and returns the new value. The bump locks the user row until commit,
+     * so writes of one user get increasing versions in commit order.
+     */
+    private long nextContactsVersion(int userId) {
+        // The user id comes from the token, the user may have been deleted since it was issued
+        if (userRepository.incrementContactsVersion(userId) == 0) {
+            throw new UserNotFoundException();
+        }
+
+        return userRepository.findContactsVersionById(userId);
+    }
+
+    /**
+     * Keeps the numbers that are still there (same number and type), deletes the ones that are gone
+     * and inserts only the new ones.
+     */
+    private void mergeNumbers(Contact contact, List<PhoneNumber> numbers) {
+        List<PhoneNumber> added = numbers == null ? new ArrayList<>() : new ArrayList<>(numbers);
+        Iterator<PhoneNumber> existing = contact.getNumbers().iterator();
+
+        while (existing.hasNext()) {
+            PhoneNumber number = existing.next();
+
+            if (!removeSame(added, number)) {
+                existing.remove();
+            }
+        }
+
+        for (PhoneNumber number : added) {
+            number.setContact(contact);
+            contact.getNumbers().add(number);
+        }
+    }
+
+    private static boolean removeSame(List<PhoneNumber> numbers, PhoneNumber number) {
+        Iterator<PhoneNumber> iterator = numbers.iterator();
+
+        while (iterator.hasNext()) {
+            PhoneNumber other = iterator.next();
+
+            if (Objects.equals(other.getNumber(), number.getNumber())
+                    && other.getNumberType() == number.getNumberType()) {
+                iterator.remove();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Timed(METRIC)
+    @Override
+    public List<Contact> getContacts(int userId) {
+        return contactRepository.findAllWithNumbersByOwnerId(userId);
+    }
+
+    @Transactional
+    @Timed(METRIC)
+    @Override
+    public List<Contact> getContactsPage(int userId, Integer after, int limit, ContactSortOrder sortOrder) {
+        List<Integer> ids = findPageIds(userId, after, limit, sortOrder);
+
+        if (ids == null) {
+            return null;
+        }
+
+        return getContactsByIds(ids);
+    }
+
+    @Transactional
+    @Timed(METRIC)
+    @Override
+    public List<Contact> getContactsByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Integer, Contact> contacts = new HashMap<>();
+        for (Contact contact : contactRepository.findAllCachedById(ids)) {
+            if (contact != null) {
+                // Collections missing from the cache are loaded in batches. It has to be done here, the flush
+                // on commit drops the pending batches
+                Hibernate.initialize(contact.getNumbers());
+                Hibernate.initialize(contact.getTags());
+                contacts.put(contact.getId(), contact);
+            }
+        }
+
+        List<Contact> page = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Contact contact = contacts.get(id);
+            if (contact != null) {
+                page.add(contact);
+            }
+        }
+
+        return page;
+    }
+
+    private List<Integer> findPageIds(int userId, Integer after, int limit, ContactSortOrder sortOrder) {
+        Pageable pageable = PageRequest.of(0, limit);
+
+        if (sortOrder == ContactSortOrder.ID) {
+            return contactRepository.findPageIdsOrderById(userId, after == null ? 0 : after, pageable);
+        }
+
+        if (after == null) {
+            return contactRepository.findFirstPageIdsOrderByName(userId, pageable);
+        }
+
+        Optional<String> cursorName = contactRepository.findNameByIdAndOwnerId(after, userId);
+
+        if (cursorName.isEmpty()) {
+            return null;
+        }
+
+        return contactRepository.findPageIdsOrderByName(userId, cursorName.get(), after, pageable);
+    }
+
+    @Transactional
+    @Timed(METRIC)
+    @Override
+    public void forEachContactRow(int userId, Consumer<ContactRow> consumer) {
+        try (Stream<ContactRow> rows = contactRepository.streamRowsByOwnerId(userId)) {
+            rows.forEach(consumer);
+        }
+    }
+
+    @Transactional
+    @Timed(METRIC)
+    @Override
+    public void forEachContactRow(int userId, Consumer<ContactTag> tagConsumer, Consumer<ContactRow> consumer) {
+        try (Stream<ContactRow> rows = contactRepository.streamRowsByOwnerId(userId);
+             Stream<ContactTag> tags = contactRepository.streamTagsByOwnerId(userId)) {
+            Iterator<ContactTag> tagIterator = tags.iterator();
+            ContactTag tag = tagIterator.hasNext() ? tagIterator.next() : null;
+
+            for (Iterator<ContactRow> rowIterator = rows.iterator(); rowIterator.hasNext(); ) {
+                ContactRow row = rowIterator.next();
+
+                // Both are ordered by contact id, so the tags of this contact are next
+                while (tag != null && tag.getContactId() <= row.getId()) {
+                    tagConsumer.accept(tag);
+                    tag = tagIterator.hasNext() ? tagIterator.next() : null;
+                }
+
+                consumer.accept(row);
+            }
+        }
+    }
+
+    @Timed(METRIC)
     @Override
-    public List<Contact> getContacts(User user) {
-        return user.getContacts();
+    public boolean isOwnContact(int userId, int id) {
+        return contactRepository.existsByIdAndOwnerId(id, userId);
     }
 
+    @Timed(METRIC)
     @Override
     public Contact getContactById(int id) {
         return contactRepository.findById(id).orElse(null);
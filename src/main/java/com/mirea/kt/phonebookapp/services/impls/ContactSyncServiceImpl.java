@@ -0,0 +1,94 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.ContactChanges;
+import com.mirea.kt.phonebookapp.repositories.ContactRepository;
+import com.mirea.kt.phonebookapp.repositories.ContactTombstoneRepository;
+import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import com.mirea.kt.phonebookapp.services.ContactSyncService;
+import com.mirea.kt.phonebookapp.util.ChangeToken;
+import com.mirea.kt.phonebookapp.util.exceptions.ChangeTokenExpiredException;
+import com.mirea.kt.phonebookapp.util.exceptions.UserNotFoundException;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class ContactSyncServiceImpl implements ContactSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContactSyncServiceImpl.class);
+
+    private final ContactRepository contactRepository;
+    private final ContactTombstoneRepository tombstoneRepository;
+    private final UserRepository userRepository;
+    private final Duration retention;
+
+    @Autowired
+    public ContactSyncServiceImpl(ContactRepository contactRepository, ContactTombstoneRepository tombstoneRepository,
+                                  UserRepository userRepository,
+                                  @Value("${contact_tombstone_retention_days:30}") long retentionDays) {
+        this.contactRepository = contactRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.userRepository = userRepository;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Transactional
+    @Override
+    public ContactChanges getChangesSince(int userId, ChangeToken since) {
+        long now = System.currentTimeMillis();
+
+        if (since != null && since.getIssuedAtMillis() < now - retention.toMillis()) {
+            throw new ChangeTokenExpiredException();
+        }
+
+        // Read first: every write up to this version is committed, later ones are at worst sent twice
+        long version = userRepository.findVersionById(userId).orElseThrow(UserNotFoundException::new)
+                .getContactsVersion();
+
+        if (since == null) {
+            return new ContactChanges(withTags(contactRepository.findAllWithNumbersByOwnerId(userId)), List.of(),
+                    new ChangeToken(version, now));
+        }
+
+        List<Contact> changed = contactRepository.findAllWithNumbersChangedSince(userId, since.getVersion());
+        List<Integer> deletedIds = tombstoneRepository.findContactIdsDeletedSince(userId, since.getVersion());
+
+        return new ContactChanges(withTags(changed), deletedIds, new ChangeToken(version, now));
+    }
+
+    /**
+     * Tags are read after the transaction, when writing the response. The first one loads the tags of all
+     * contacts with one subselect, which the flush on commit would drop
+     */
+    private static List<Contact> withTags(List<Contact> contacts) {
+        for (Contact contact : contacts) {
+            Hibernate.initialize(contact.getTags());
+        }
+
+        return contacts;
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${contact_tombstone_prune_interval_ms:3600000}",
+            initialDelayString = "${contact_tombstone_prune_interval_ms:3600000}")
+    @Override
+    public int pruneTombstones() {
+        int pruned = tombstoneRepository.deleteDeletedBefore(LocalDateTime.now().minus(retention));
+
+        if (pruned > 0) {
+            log.info("Pruned {} contact tombstones older than {}", pruned, retention);
+        }
+
+        return pruned;
+    }
+}
@@ -0,0 +1,138 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.mirea.kt.phonebookapp.events.ContactChangedEvent;
+import com.mirea.kt.phonebookapp.repositories.ContactRepository;
+import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactTag;
+import com.mirea.kt.phonebookapp.services.ContactTagService;
+import com.mirea.kt.phonebookapp.util.TagExpression;
+import com.mirea.kt.phonebookapp.util.VersionedIndexCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class ContactTagServiceImpl implements ContactTagService, MeterBinder {
+
+    // A HashMap entry and a tag string, next to the bitmap itself
+    private static final int TAG_OVERHEAD_BYTES = 96;
+
+    private final ContactRepository contactRepository;
+    private final VersionedIndexCache<TagIndex> indexes;
+
+    @Autowired
+    public ContactTagServiceImpl(ContactRepository contactRepository, UserRepository userRepository,
+                                 @Value("${contact_tag_index_max_bytes:33554432}") long maxBytes,
+                                 @Value("${contact_tag_index_ttl_minutes:30}") long ttlMinutes) {
+        this.contactRepository = contactRepository;
+        this.indexes = new VersionedIndexCache<>(maxBytes, ttlMinutes, TagIndex::estimatedSize,
+                userRepository::findContactsVersionOrZero);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        indexes.monitor(registry, "contact_tag_index");
+    }
+
+    @Override
+    public List<Integer> filterByTags(int userId, TagExpression expression, Integer after, int limit) {
+        return indexes.get(userId, this::buildIndex).filter(expression, after == null ? 0 : after, limit);
+    }
+
+    @TransactionalEventListener
+    public void onContactChanged(ContactChangedEvent event) {
+        if (event.isBulk()) {
+            indexes.invalidate(event.getUserId());
+            return;
+        }
+
+        indexes.apply(event.getUserId(), event.getVersion(), index -> {
+            if (event.getBefore() != null) {
+                index.remove(event.getBefore().getId(), event.getBefore().getTags());
+            }
+
+            if (event.getAfter() != null) {
+                index.add(event.getAfter().getId(), event.getAfter().getTags());
+            }
+        });
+    }
+
+    private TagIndex buildIndex(int userId) {
+        TagIndex index = new TagIndex();
+
+        for (ContactTag tag : contactRepository.findTagsByOwnerId(userId)) {
+            index.add(tag.getContactId(), tag.getTag());
+        }
+
+        return index;
+    }
+
+    /**
+     * A compressed bitmap of contact ids per tag. Contact ids come from one global sequence, so a user's ids
+     * are sparse, which is what Roaring containers are good at; no per-user ordinal mapping is needed.
+     */
+    private static class TagIndex {
+
+        private final Map<String, RoaringBitmap> tags = new HashMap<>();
+
+        synchronized void add(int id, String tag) {
+            tags.computeIfAbsent(TagExpression.normalizeTag(tag), name -> new RoaringBitmap()).add(id);
+        }
+
+        synchronized void add(int id, Set<String> tags) {
+            for (String tag : tags) {
+                add(id, tag);
+            }
+        }
+
+        synchronized void remove(int id, Set<String> tags) {
+            for (String tag : tags) {
+                String name = TagExpression.normalizeTag(tag);
+                RoaringBitmap bitmap = this.tags.get(name);
+
+                if (bitmap != null) {
+                    bitmap.remove(id);
+                    if (bitmap.isEmpty()) {
+                        this.tags.remove(name);
+                    }
+                }
+            }
+        }
+
+        synchronized long estimatedSize() {
+            long size = 0;
+            for (RoaringBitmap bitmap : tags.values()) {
+                size += TAG_OVERHEAD_BYTES + bitmap.getSizeInBytes();
+            }
+            return size;
+        }
+
+        List<Integer> filter(TagExpression expression, int after, int limit) {
+            RoaringBitmap result;
+            synchronized (this) {
+                result = expression.evaluate(tags::get);
+            }
+
+            List<Integer> ids = new ArrayList<>(Math.min(limit, 16));
+            PeekableIntIterator iterator = result.getIntIterator();
+            iterator.advanceIfNeeded(after + 1);
+
+            while (iterator.hasNext() && ids.size() < limit) {
+                ids.add(iterator.next());
+            }
+
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.mirea.kt.phonebookapp.events.ContactChangedEvent;
+import com.mirea.kt.phonebookapp.repositories.PhoneNumberRepository;
+import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import com.mirea.kt.phonebookapp.repositories.projections.NumberOwner;
+import com.mirea.kt.phonebookapp.services.PhoneNumberLookupService;
+import com.mirea.kt.phonebookapp.util.LongIntHashMap;
+import com.mirea.kt.phonebookapp.util.PhoneNumbers;
+import com.mirea.kt.phonebookapp.util.VersionedIndexCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+@Service
+public class PhoneNumberLookupServiceImpl implements PhoneNumberLookupService, MeterBinder {
+
+    private final PhoneNumberRepository phoneNumberRepository;
+    // Null if the index is turned off
+    private final VersionedIndexCache<LongIntHashMap> indexes;
+
+    @Autowired
+    public PhoneNumberLookupServiceImpl(PhoneNumberRepository phoneNumberRepository, UserRepository userRepository,
+                                        @Value("${number_index_enabled:true}") boolean indexEnabled,
+                                        @Value("${number_index_max_bytes:33554432}") long maxBytes,
+                                        @Value("${number_index_ttl_minutes:30}") long ttlMinutes) {
+        this.phoneNumberRepository = phoneNumberRepository;
+        this.indexes = !indexEnabled ? null : new VersionedIndexCache<>(maxBytes, ttlMinutes,
+                LongIntHashMap::estimatedSize, userRepository::findContactsVersionOrZero);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (indexes != null) {
+            indexes.monitor(registry, "phone_number_index");
+        }
+    }
+
+    @Override
+    public Integer findContactIdByNumber(int userId, String number) {
+        long normalized = PhoneNumbers.normalize(number);
+
+        if (normalized == PhoneNumbers.NONE) {
+            return null;
+        }
+
+        if (indexes == null) {
+            List<Integer> ids = phoneNumberRepository.findContactIdsByNormalizedNumber(userId, normalized,
+                    PageRequest.of(0, 1));
+            return ids.isEmpty() ? null : ids.get(0);
+        }
+
+        LongIntHashMap index = indexes.get(userId, this::buildIndex);
+
+        int contactId;
+        synchronized (index) {
+            contactId = index.get(normalized);
+        }
+
+        return contactId == LongIntHashMap.NO_VALUE ? null : contactId;
+    }
+
+    @TransactionalEventListener
+    public void onContactChanged(ContactChangedEvent event) {
+        if (indexes == null) {
+            return;
+        }
+
+        if (event.isBulk()) {
+            indexes.invalidate(event.getUserId());
+            return;
+        }
+
+        indexes.apply(event.getUserId(), event.getVersion(), index -> {
+            if (event.getBefore() != null) {
+                for (long number : event.getBefore().getNumbers()) {
+                    if (index.get(number) == event.getBefore().getId()) {
+                        index.remove(number);
+
+                        // Another contact of the user may have the same number
+                        List<Integer> ids = phoneNumberRepository.findContactIdsByNormalizedNumber(
+                                event.getUserId(), number, PageRequest.of(0, 1));
+                        if (!ids.isEmpty()) {
+                            index.put(number, ids.get(0));
+                        }
+                    }
+                }
+            }
+
+            if (event.getAfter() != null) {
+                for (long number : event.getAfter().getNumbers()) {
+                    int current = index.get(number);
+                    if (current == LongIntHashMap.NO_VALUE || current > event.getAfter().getId()) {
+                        index.put(number, event.getAfter().getId());
+                    }
+                }
+            }
+        });
+    }
+
+    private LongIntHashMap buildIndex(int userId) {
+        List<NumberOwner> owners = phoneNumberRepository.findNumberOwnersByOwnerId(userId);
+        LongIntHashMap index = new LongIntHashMap(owners.size());
+
+        for (NumberOwner owner : owners) {
+            int current = index.get(owner.getNumber());
+            if (current == LongIntHashMap.NO_VALUE || current > owner.getContactId()) {
+                index.put(owner.getNumber(), owner.getContactId());
+            }
+        }
+
+        return index;
+    }
+}
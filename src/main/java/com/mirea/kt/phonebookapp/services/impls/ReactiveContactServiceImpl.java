@@ -0,0 +1,121 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactTag;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactsVersion;
+import com.mirea.kt.phonebookapp.repositories.reactive.ReactiveContactRepository;
+import com.mirea.kt.phonebookapp.services.ReactiveContactService;
+import com.mirea.kt.phonebookapp.util.ContactNameIndex;
+import com.mirea.kt.phonebookapp.util.NameNormalizer;
+import com.mirea.kt.phonebookapp.util.PhoneNumbers;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveContactServiceImpl implements ReactiveContactService, MeterBinder {
+
+    private final ReactiveContactRepository contactRepository;
+    private final Cache<Integer, VersionedIndex> nameIndexes;
+
+    @Autowired
+    public ReactiveContactServiceImpl(ReactiveContactRepository contactRepository,
+                                      @Value("${contact_search_max_bytes:67108864}") long maxBytes,
+                                      @Value("${contact_search_ttl_minutes:30}") long ttlMinutes) {
+        this.contactRepository = contactRepository;
+        this.nameIndexes = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Integer userId, VersionedIndex index) ->
+                        (int) Math.min(index.index.estimatedSize(), Integer.MAX_VALUE))
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, nameIndexes, "reactive_contact_name_index");
+    }
+
+    @Override
+    public Mono<ContactsVersion> getContactsVersion(int userId) {
+        return contactRepository.findContactsVersionById(userId);
+    }
+
+    @Override
+    public Flux<ContactRow> streamContactRows(int userId) {
+        return contactRepository.streamRowsByOwnerId(userId);
+    }
+
+    @Override
+    public Flux<ContactRow> getContactRowsByIds(int userId, List<Integer> ids) {
+        return ids.isEmpty() ? Flux.empty() : contactRepository.findRowsByIdIn(userId, ids);
+    }
+
+    @Override
+    public Flux<ContactTag> streamContactTags(int userId) {
+        return contactRepository.streamTagsByOwnerId(userId);
+    }
+
+    @Override
+    public Mono<Map<Integer, Set<String>>> getContactTags(int userId, List<Integer> ids) {
+        return ids.isEmpty() ? Mono.just(Map.of()) : groupByContact(contactRepository.findTagsByIdIn(userId, ids));
+    }
+
+    /**
+     * Writes happen on servlet instances, so there are no change events here: the index is reused
+     * while the user's contacts version is the one it was built at, and rebuilt otherwise.
+     */
+    @Override
+    public Mono<List<Integer>> searchByNamePrefix(ContactsVersion version, String prefix, int limit) {
+        VersionedIndex cached = nameIndexes.getIfPresent(version.getId());
+
+        Mono<ContactNameIndex> index = cached != null && cached.version == version.getContactsVersion()
+                ? Mono.just(cached.index)
+                : contactRepository.findNamesByOwnerId(version.getId())
+                        .collect(ContactNameIndex::new, (names, name) -> names.add(name.getId(), name.getName()))
+                        .doOnNext(built -> nameIndexes.put(version.getId(),
+                                new VersionedIndex(version.getContactsVersion(), built)));
+
+        return index.map(names -> names.search(NameNormalizer.normalize(prefix), limit));
+    }
+
+    @Override
+    public Mono<Integer> findContactIdByNumber(int userId, String number) {
+        long normalized = PhoneNumbers.normalize(number);
+
+        if (normalized == PhoneNumbers.NONE) {
+            return Mono.empty();
+        }
+
+        return contactRepository.findContactIdByNormalizedNumber(userId, normalized);
+    }
+
+    private static Mono<Map<Integer, Set<String>>> groupByContact(Flux<ContactTag> tags) {
+        return tags.collect(HashMap::new, (map, tag) -> map.computeIfAbsent(tag.getContactId(),
+                id -> new LinkedHashSet<>(2)).add(tag.getTag()));
+    }
+
+    @AllArgsConstructor
+    private static class VersionedIndex {
+        private final long version;
+        private final ContactNameIndex index;
+    }
+}
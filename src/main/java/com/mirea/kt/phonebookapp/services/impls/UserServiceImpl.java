@@ -2,50 +2,151 @@ package com.mirea.kt.phonebookapp.services.impls;
 
 import com.mirea.kt.phonebookapp.models.User;
 import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactsVersion;
 import com.mirea.kt.phonebookapp.services.UserService;
+import com.mirea.kt.phonebookapp.util.BloomFilter;
+import com.mirea.kt.phonebookapp.util.exceptions.UserNotCreatedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.stream.Stream;
 
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedLogins;
+    private final double falsePositiveRate;
+
+    // Logins of all users, null until loaded; while loading, new logins go to both filters
+    private volatile BloomFilter loginFilter;
+    private volatile BloomFilter loadingLoginFilter;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${login_filter_expected_logins:1000000}") long expectedLogins,
+                           @Value("${login_filter_false_positive_rate:0.01}") double falsePositiveRate) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedLogins = expectedLogins;
+        this.falsePositiveRate = falsePositiveRate;
     }
 
-    @Transactional
+    /**
+     * Not transactional: the hash waits for the bounded encoder pool, and a transaction would hold a database
+     * connection all that time. The save commits on its own.
+     */
     @Override
     public void addUser(User user) {
+        user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setContacts(Collections.emptyList());
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
 
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Registered concurrently after UserValidator found the login free
+            throw new UserNotCreatedException("login - User with this login has already created;");
+        }
+
+        rememberLogin(user.getLogin());
     }
 
+    @Transactional
     @Override
     public void updateUser(User user) {
+        user.setUpdatedAt(LocalDateTime.now());
 
+        userRepository.save(user);
     }
 
+    @Transactional
     @Override
     public void deleteUser(User user) {
-
+        userRepository.delete(user);
     }
 
     @Override
     public User getUserByLogin(String login) {
         return userRepository.findByLogin(login).orElse(null);
     }
+
+    /**
+     * Most checks are for free logins, and those are answered by the filter alone.
+     * "Maybe taken" and the time before the filter is loaded go to the database. Logins registered
+     * on other instances reach the filter only on restart, so the unique index on login stays the guarantee.
+     */
+    @Override
+    public boolean isLoginTaken(String login) {
+        BloomFilter filter = loginFilter;
+
+        if (filter != null && !filter.mightContain(login)) {
+            return false;
+        }
+
+        return userRepository.existsByLogin(login);
+    }
+
+    @Override
+    public void loadLoginFilter() {
+        BloomFilter filter = new BloomFilter(expectedLogins, falsePositiveRate);
+        loadingLoginFilter = filter;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> logins = userRepository.streamAllLogins()) {
+                    logins.forEach(filter::add);
+                }
+            });
+
+            // Published before loadingLoginFilter is cleared, so a login registered in between is in the filter
+            loginFilter = filter;
+        } catch (DataAccessException | TransactionException e) {
+            // Every check keeps going to the database
+            log.warn("Could not load login filter on startup", e);
+            return;
+        } finally {
+            loadingLoginFilter = null;
+        }
+
+        log.info("Loaded login filter, {} bytes", filter.sizeInBytes());
+    }
+
+    @Override
+    public ContactsVersion getContactsVersion(int userId) {
+        return userRepository.findVersionById(userId).orElse(null);
+    }
+
+    private void rememberLogin(String login) {
+        // Read in the order opposite to the one loadLoginFilter writes them: when loading is already cleared,
+        // the loaded filter is already published
+        BloomFilter loading = loadingLoginFilter;
+        BloomFilter filter = loginFilter;
+
+        if (loading != null) {
+            loading.add(login);
+        }
+
+        if (filter != null && filter != loading) {
+            filter.add(login);
+        }
+    }
 }
@@ -0,0 +1,42 @@
+package com.mirea.kt.phonebookapp.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Delta sync position: the user's contacts version the client has seen and when the token was issued,
+ * written as "version.issuedAtMillis". The issue time tells whether tombstones after the version
+ * may already be pruned.
+ */
+@Getter
+@AllArgsConstructor
+public class ChangeToken {
+
+    private final long version;
+    private final long issuedAtMillis;
+
+    /**
+     * @throws IllegalArgumentException if the token is not "version.issuedAtMillis"
+     */
+    public static ChangeToken parse(String token) {
+        int dot = token.indexOf('.');
+
+        if (dot < 0) {
+            throw new IllegalArgumentException("Malformed change token");
+        }
+
+        long version = Long.parseLong(token.substring(0, dot));
+        long issuedAtMillis = Long.parseLong(token.substring(dot + 1));
+
+        if (version < 0 || issuedAtMillis < 0) {
+            throw new IllegalArgumentException("Malformed change token");
+        }
+
+        return new ChangeToken(version, issuedAtMillis);
+    }
+
+    @Override
+    public String toString() {
+        return version + "." + issuedAtMillis;
+    }
+}
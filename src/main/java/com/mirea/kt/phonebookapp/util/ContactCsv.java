@@ -0,0 +1,119 @@
+package com.mirea.kt.phonebookapp.util;
+
+import com.mirea.kt.phonebookapp.dto.ContactDTO;
+import com.mirea.kt.phonebookapp.dto.PhoneNumberDTO;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV layout of a contact: {@code name,imageName,numbers}, where numbers are written as
+ * {@code number:TYPE} pairs separated by {@code ;}. Fields containing commas or quotes are quoted,
+ * quoted fields can not span several lines.
+ */
+public final class ContactCsv {
+
+    public static final String HEADER = "name,imageName,numbers";
+
+    private ContactCsv() {
+    }
+
+    public static boolean isHeader(String line) {
+        return HEADER.equalsIgnoreCase(line.strip());
+    }
+
+    public static ContactDTO parse(String line) {
+        List<String> fields = splitLine(line);
+
+        if (fields.size() != 3) {
+            throw new IllegalArgumentException("Expected 3 fields, found " + fields.size());
+        }
+
+        ContactDTO contact = new ContactDTO();
+        contact.setName(fields.get(0));
+        contact.setImageName(fields.get(1).isEmpty() ? null : fields.get(1));
+        contact.setNumbers(parseNumbers(fields.get(2)));
+        return contact;
+    }
+
+    public static void appendField(StringBuilder builder, String value) {
+        if (value == null) {
+            return;
+        }
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            builder.append(value);
+            return;
+        }
+
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                builder.append('"');
+            }
+            builder.append(c == '\n' || c == '\r' ? ' ' : c);
+        }
+        builder.append('"');
+    }
+
+    private static List<PhoneNumberDTO> parseNumbers(String field) {
+        List<PhoneNumberDTO> numbers = new ArrayList<>();
+
+        if (field.isBlank()) {
+            return numbers;
+        }
+
+        for (String item : field.split(";")) {
+            int separator = item.lastIndexOf(':');
+
+            PhoneNumberDTO number = new PhoneNumberDTO();
+            if (separator < 0) {
+                number.setNumber(item.strip());
+                number.setNumberType(NumberType.NONE);
+            } else {
+                number.setNumber(item.substring(0, separator).strip());
+                number.setNumberType(NumberType.valueOf(item.substring(separator + 1).strip()));
+            }
+            numbers.add(number);
+        }
+
+        return numbers;
+    }
+
+    private static List<String> splitLine(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,50 @@
+package com.mirea.kt.phonebookapp.util;
+
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes contacts in the {@link ContactCsv} layout, so an export can be imported back through POST /contact/batch.
+ */
+public class ContactCsvExportWriter extends ContactExportWriter {
+
+    private final StringBuilder line = new StringBuilder(128);
+    private final StringBuilder numbers = new StringBuilder(64);
+
+    public ContactCsvExportWriter(OutputStream outputStream, boolean gzip) throws IOException {
+        super(outputStream, gzip);
+        out.write(ContactCsv.HEADER);
+        out.write("\r\n");
+    }
+
+    @Override
+    protected void startContact(ContactRow row) {
+        line.setLength(0);
+        numbers.setLength(0);
+
+        ContactCsv.appendField(line, row.getName());
+        line.append(',');
+        ContactCsv.appendField(line, row.getImageName());
+        line.append(',');
+    }
+
+    @Override
+    protected void addNumber(ContactRow row) {
+        if (numbers.length() > 0) {
+            numbers.append(';');
+        }
+
+        NumberType numberType = row.getNumberType() == null ? NumberType.NONE : row.getNumberType();
+        numbers.append(row.getNumber()).append(':').append(numberType.name());
+    }
+
+    @Override
+    protected void endContact() throws IOException {
+        ContactCsv.appendField(line, numbers.toString());
+        line.append("\r\n");
+        out.append(line);
+    }
+}
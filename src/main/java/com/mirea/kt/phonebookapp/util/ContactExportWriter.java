@@ -0,0 +1,74 @@
+package com.mirea.kt.phonebookapp.util;
+
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Base for the phonebook export formats. Takes the rows of
+ * {@link com.mirea.kt.phonebookapp.repositories.ContactRepository#streamRowsByOwnerId} ordered by contact id
+ * and hands each contact and its numbers to the format as they arrive. Closing flushes the output
+ * (and finishes gzip) but leaves the underlying stream open.
+ */
+public abstract class ContactExportWriter implements Consumer<ContactRow>, Closeable {
+
+    protected final Writer out;
+
+    private final GZIPOutputStream gzipStream;
+    private boolean started;
+    private int currentId;
+
+    protected ContactExportWriter(OutputStream outputStream, boolean gzip) throws IOException {
+        this.gzipStream = gzip ? new GZIPOutputStream(outputStream, 8192) : null;
+        this.out = new BufferedWriter(new OutputStreamWriter(gzip ? gzipStream : outputStream, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void accept(ContactRow row) {
+        try {
+            if (!started || row.getId() != currentId) {
+                if (started) {
+                    endContact();
+                }
+
+                started = true;
+                currentId = row.getId();
+                startContact(row);
+            }
+
+            if (row.getNumber() != null) {
+                addNumber(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (started) {
+            endContact();
+        }
+
+        out.flush();
+
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+    }
+
+    protected abstract void startContact(ContactRow row) throws IOException;
+
+    protected abstract void addNumber(ContactRow row) throws IOException;
+
+    protected abstract void endContact() throws IOException;
+}
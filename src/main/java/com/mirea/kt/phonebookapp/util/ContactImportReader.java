@@ -0,0 +1,270 @@
+package com.mirea.kt.phonebookapp.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mirea.kt.phonebookapp.dto.ContactDTO;
+import com.mirea.kt.phonebookapp.dto.ContactImportErrorDTO;
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.util.mappers.ContactMapper;
+import org.springframework.http.MediaType;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Reads contacts for the bulk import from a JSON array, NDJSON or CSV ({@link ContactCsv}) body.
+ * Rows are parsed, validated and mapped one at a time while the import pulls them,
+ * rows that can not be imported are skipped and reported in {@link #getErrors()}.
+ */
+public class ContactImportReader implements Iterator<Contact>, Closeable {
+
+    public static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final RowSource source;
+    private final Validator validator;
+    private final ContactMapper contactMapper;
+
+    private final List<ContactImportErrorDTO> errors = new ArrayList<>();
+    private int failed;
+
+    private Contact next;
+    private boolean finished;
+
+    public ContactImportReader(InputStream inputStream, MediaType mediaType, ObjectMapper objectMapper,
+                               Validator validator, ContactMapper contactMapper) throws IOException {
+        if (MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)) {
+            this.source = new JsonArraySource(objectMapper, inputStream);
+        } else if (MediaType.APPLICATION_NDJSON.isCompatibleWith(mediaType)) {
+            this.source = new NdjsonSource(objectMapper, inputStream);
+        } else if (TEXT_CSV.isCompatibleWith(mediaType)) {
+            this.source = new CsvSource(inputStream);
+        } else {
+            throw new IllegalArgumentException("Unsupported import format " + mediaType);
+        }
+
+        this.validator = validator;
+        this.contactMapper = contactMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !finished) {
+            ContactDTO contactDTO;
+
+            try {
+                contactDTO = source.read();
+            } catch (IllegalArgumentException e) {
+                addError(e.getMessage());
+                continue;
+            } catch (IOException e) {
+                addError("Can not read import body: " + e.getMessage());
+                finished = true;
+                break;
+            }
+
+            if (contactDTO == null) {
+                finished = true;
+                break;
+            }
+
+            Set<ConstraintViolation<ContactDTO>> violations = validator.validate(contactDTO);
+
+            if (!violations.isEmpty()) {
+                StringBuilder errorMsg = new StringBuilder();
+                for (ConstraintViolation<ContactDTO> violation : violations) {
+                    errorMsg.append(violation.getPropertyPath())
+                            .append(" - ").append(violation.getMessage())
+                            .append(";");
+                }
+
+                addError(errorMsg.toString());
+                continue;
+            }
+
+            next = contactMapper.toContact(contactDTO);
+        }
+
+        return next != null;
+    }
+
+    @Override
+    public Contact next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Contact contact = next;
+        next = null;
+        return contact;
+    }
+
+    public List<ContactImportErrorDTO> getErrors() {
+        return errors;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private void addError(String message) {
+        failed++;
+
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new ContactImportErrorDTO(source.position(), message));
+        }
+    }
+
+    /**
+     * Returns the next row, or null when the body is over. A row that is broken but can be skipped
+     * is reported with {@link IllegalArgumentException}, an {@link IOException} ends the import.
+     */
+    private interface RowSource extends Closeable {
+
+        ContactDTO read() throws IOException;
+
+        long position();
+    }
+
+    private static class JsonArraySource implements RowSource {
+
+        private final ObjectMapper objectMapper;
+        private final JsonParser parser;
+        private long position;
+
+        JsonArraySource(ObjectMapper objectMapper, InputStream inputStream) throws IOException {
+            this.objectMapper = objectMapper;
+            this.parser = objectMapper.getFactory().createParser(inputStream);
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSON import body should be an array");
+            }
+        }
+
+        @Override
+        public ContactDTO read() throws IOException {
+            JsonToken token = parser.nextToken();
+
+            if (token == JsonToken.END_ARRAY || token == null) {
+                return null;
+            }
+
+            position++;
+            JsonNode node = parser.readValueAsTree();
+
+            try {
+                return objectMapper.treeToValue(node, ContactDTO.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException(e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    private static class NdjsonSource implements RowSource {
+
+        private final ObjectMapper objectMapper;
+        private final BufferedReader reader;
+        private long position;
+
+        NdjsonSource(ObjectMapper objectMapper, InputStream inputStream) {
+            this.objectMapper = objectMapper;
+            this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public ContactDTO read() throws IOException {
+            String line;
+
+            do {
+                line = reader.readLine();
+                position++;
+            } while (line != null && line.isBlank());
+
+            if (line == null) {
+                return null;
+            }
+
+            try {
+                return objectMapper.readValue(line, ContactDTO.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException(e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static class CsvSource implements RowSource {
+
+        private final BufferedReader reader;
+        private long position;
+
+        CsvSource(InputStream inputStream) {
+            this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public ContactDTO read() throws IOException {
+            String line;
+
+            do {
+                line = reader.readLine();
+                position++;
+            } while (line != null && (line.isBlank() || (position == 1 && ContactCsv.isHeader(line))));
+
+            if (line == null) {
+                return null;
+            }
+
+            return ContactCsv.parse(line);
+        }
+
+        @Override
+        public long position() {
+            return position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
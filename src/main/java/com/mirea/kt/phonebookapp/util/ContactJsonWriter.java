@@ -0,0 +1,90 @@
+package com.mirea.kt.phonebookapp.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mirea.kt.phonebookapp.dto.ContactDTO;
+import com.mirea.kt.phonebookapp.dto.PhoneNumberDTO;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactTag;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Writes the rows of {@link com.mirea.kt.phonebookapp.repositories.ContactRepository#streamRowsByOwnerId}
+ * as the same JSON-map the unpaged GET /contact returns, one contact at a time.
+ * Rows have to come ordered by contact id. Tags are not part of the rows, the ones passed to {@link #addTag}
+ * before the first row of a contact are its tags.
+ */
+public class ContactJsonWriter implements Consumer<ContactRow>, Closeable {
+
+    private final JsonGenerator generator;
+
+    private int currentId;
+    private ContactDTO current;
+
+    private int nextTagsId;
+    private Set<String> nextTags;
+
+    public ContactJsonWriter(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(outputStream);
+        this.generator.writeStartObject();
+    }
+
+    public void addTag(ContactTag tag) {
+        if (nextTags == null || tag.getContactId() != nextTagsId) {
+            nextTagsId = tag.getContactId();
+            nextTags = new LinkedHashSet<>(2);
+        }
+
+        nextTags.add(tag.getTag());
+    }
+
+    @Override
+    public void accept(ContactRow row) {
+        if (current == null || row.getId() != currentId) {
+            writeCurrent();
+
+            currentId = row.getId();
+            current = new ContactDTO();
+            current.setName(row.getName());
+            current.setImageName(row.getImageName());
+            current.setNumbers(new ArrayList<>(2));
+            current.setTags(nextTags != null && nextTagsId == currentId ? nextTags : Set.of());
+            nextTags = null;
+        }
+
+        if (row.getNumber() != null) {
+            PhoneNumberDTO number = new PhoneNumberDTO();
+            number.setNumber(row.getNumber());
+            number.setNumberType(row.getNumberType());
+            current.getNumbers().add(number);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeCurrent();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    private void writeCurrent() {
+        if (current == null) {
+            return;
+        }
+
+        try {
+            generator.writeFieldName(Integer.toString(currentId));
+            generator.writeObject(current);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
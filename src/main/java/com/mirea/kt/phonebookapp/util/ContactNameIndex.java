@@ -0,0 +1,61 @@
+package com.mirea.kt.phonebookapp.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Names kept sorted as "normalized name \0 contact id", so a prefix lookup is one seek
+ * and a walk over the following keys.
+ */
+public class ContactNameIndex {
+
+    // Skip list node, index level share, key String and Integer value, in bytes
+    private static final int ENTRY_OVERHEAD = 112;
+
+    private final ConcurrentSkipListMap<String, Integer> names = new ConcurrentSkipListMap<>();
+    private final AtomicLong keyChars = new AtomicLong();
+
+    public void add(int id, String name) {
+        String key = key(id, name);
+
+        if (names.put(key, id) == null) {
+            keyChars.addAndGet(key.length());
+        }
+    }
+
+    public void remove(int id, String name) {
+        String key = key(id, name);
+
+        if (names.remove(key) != null) {
+            keyChars.addAndGet(-key.length());
+        }
+    }
+
+    public List<Integer> search(String prefix, int limit) {
+        List<Integer> ids = new ArrayList<>(Math.min(limit, 16));
+
+        for (Map.Entry<String, Integer> entry : names.tailMap(prefix).entrySet()) {
+            if (ids.size() == limit || !entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            ids.add(entry.getValue());
+        }
+
+        return ids;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public long estimatedSize() {
+        return (long) names.size() * ENTRY_OVERHEAD + keyChars.get();
+    }
+
+    private static String key(int id, String name) {
+        return NameNormalizer.normalize(name) + '\0' + id;
+    }
+}
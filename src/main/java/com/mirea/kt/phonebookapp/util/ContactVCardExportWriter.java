@@ -0,0 +1,83 @@
+package com.mirea.kt.phonebookapp.util;
+
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes contacts as vCard 3.0 (RFC 2426) entries, one after another.
+ */
+public class ContactVCardExportWriter extends ContactExportWriter {
+
+    public ContactVCardExportWriter(OutputStream outputStream, boolean gzip) throws IOException {
+        super(outputStream, gzip);
+    }
+
+    @Override
+    protected void startContact(ContactRow row) throws IOException {
+        String name = escape(row.getName());
+
+        out.write("BEGIN:VCARD\r\nVERSION:3.0\r\nFN:");
+        out.write(name);
+        out.write("\r\nN:");
+        out.write(name);
+        out.write(";;;;\r\n");
+    }
+
+    @Override
+    protected void addNumber(ContactRow row) throws IOException {
+        out.write("TEL");
+
+        if (row.getNumberType() != null) {
+            switch (row.getNumberType()) {
+                case CELLULAR:
+                    out.write(";TYPE=CELL");
+                    break;
+                case HOME:
+                    out.write(";TYPE=HOME");
+                    break;
+                case WORKER:
+                    out.write(";TYPE=WORK");
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        out.write(':');
+        out.write(escape(row.getNumber()));
+        out.write("\r\n");
+    }
+
+    @Override
+    protected void endContact() throws IOException {
+        out.write("END:VCARD\r\n");
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        StringBuilder builder = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                case ',':
+                case ';':
+                    builder.append('\\').append(c);
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+}
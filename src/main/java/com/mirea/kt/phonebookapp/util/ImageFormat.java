@@ -0,0 +1,78 @@
+package com.mirea.kt.phonebookapp.util;
+
+/**
+ * Image formats accepted as avatars, recognized by their leading bytes rather than the declared content type.
+ */
+public enum ImageFormat {
+
+    PNG("png", "image/png"),
+    JPEG("jpg", "image/jpeg"),
+    GIF("gif", "image/gif"),
+    WEBP("webp", "image/webp");
+
+    /**
+     * Enough leading bytes for {@link #detect}
+     */
+    public static final int HEADER_LENGTH = 12;
+
+    private final String extension;
+    private final String mediaType;
+
+    ImageFormat(String extension, String mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param header the first bytes of the file, up to {@link #HEADER_LENGTH}
+     * @return null if the bytes are not one of the formats
+     */
+    public static ImageFormat detect(byte[] header, int length) {
+        if (startsWith(header, length, 0, 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n')) {
+            return PNG;
+        }
+        if (startsWith(header, length, 0, 0xFF, 0xD8, 0xFF)) {
+            return JPEG;
+        }
+        if (startsWith(header, length, 0, 'G', 'I', 'F', '8')) {
+            return GIF;
+        }
+        if (startsWith(header, length, 0, 'R', 'I', 'F', 'F') && startsWith(header, length, 8, 'W', 'E', 'B', 'P')) {
+            return WEBP;
+        }
+        return null;
+    }
+
+    /**
+     * @return null if there is no such extension
+     */
+    public static ImageFormat fromExtension(String extension) {
+        for (ImageFormat format : values()) {
+            if (format.extension.equals(extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, int... magic) {
+        if (length < offset + magic.length) {
+            return false;
+        }
+
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
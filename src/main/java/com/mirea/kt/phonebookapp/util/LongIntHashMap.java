@@ -0,0 +1,125 @@
+package com.mirea.kt.phonebookapp.util;
+
+/**
+ * Open addressing map from long to int without boxing. Key 0 is reserved as the empty slot marker.
+ * Not thread-safe.
+ */
+public class LongIntHashMap {
+
+    public static final int NO_VALUE = -1;
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    public int get(long key) {
+        int mask = keys.length - 1;
+
+        for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+
+        return NO_VALUE;
+    }
+
+    /**
+     * @return the previous value, or {@link #NO_VALUE} if the key was absent
+     */
+    public int put(long key, int value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            resize(keys.length << 1);
+        }
+
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                int previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return NO_VALUE;
+    }
+
+    /**
+     * @return the removed value, or {@link #NO_VALUE} if the key was absent
+     */
+    public int remove(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+
+        while (keys[i] != key) {
+            if (keys[i] == 0) {
+                return NO_VALUE;
+            }
+            i = (i + 1) & mask;
+        }
+
+        int removed = values[i];
+        size--;
+
+        // Shift back the entries of the probe chain that follows, so lookups never stop at the hole
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+
+        keys[hole] = 0;
+        values[hole] = 0;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long estimatedSize() {
+        return 16L + keys.length * (long) (Long.BYTES + Integer.BYTES);
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new long[capacity];
+        values = new int[capacity];
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
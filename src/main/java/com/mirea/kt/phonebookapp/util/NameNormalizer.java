@@ -0,0 +1,49 @@
+package com.mirea.kt.phonebookapp.util;
+
+/**
+ * Brings contact names and search queries to one form: lower case, Cyrillic transliterated to Latin,
+ * whitespace collapsed. So "Вася", "ВАСЯ" and "Vasya" all become "vasya".
+ */
+public final class NameNormalizer {
+
+    private static final String[] CYRILLIC = {
+            "a", "b", "v", "g", "d", "e", "zh", "z", "i", "y", "k", "l", "m", "n", "o", "p",
+            "r", "s", "t", "u", "f", "kh", "ts", "ch", "sh", "shch", "", "y", "", "e", "yu", "ya"
+    };
+
+    private NameNormalizer() {
+    }
+
+    public static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+
+        StringBuilder builder = new StringBuilder(name.length() + 4);
+        boolean space = false;
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = Character.toLowerCase(name.charAt(i));
+
+            if (Character.isWhitespace(c)) {
+                space = builder.length() > 0;
+                continue;
+            }
+
+            if (space) {
+                builder.append(' ');
+                space = false;
+            }
+
+            if (c >= 'а' && c <= 'я') {
+                builder.append(CYRILLIC[c - 'а']);
+            } else if (c == 'ё') {
+                builder.append('e');
+            } else {
+                builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package com.mirea.kt.phonebookapp.util;
+
+/**
+ * Canonical numeric form of a phone number: digits only, Russian numbers written with a leading 8
+ * or without the country code are brought to 7XXXXXXXXXX. So "8 (999) 123-45-67", "+7 999 123 45 67"
+ * and "9991234567" are all 79991234567.
+ */
+public final class PhoneNumbers {
+
+    public static final long NONE = 0;
+
+    private static final int MAX_DIGITS = 18;
+
+    private PhoneNumbers() {
+    }
+
+    /**
+     * @return canonical number, or {@link #NONE} if there are no digits or too many to fit a long
+     */
+    public static long normalize(String number) {
+        if (number == null) {
+            return NONE;
+        }
+
+        StringBuilder digits = new StringBuilder(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+
+        if (digits.length() == 11 && digits.charAt(0) == '8') {
+            digits.setCharAt(0, '7');
+        } else if (digits.length() == 10) {
+            digits.insert(0, '7');
+        }
+
+        if (digits.length() == 0 || digits.length() > MAX_DIGITS) {
+            return NONE;
+        }
+
+        return Long.parseLong(digits.toString());
+    }
+}
@@ -0,0 +1,171 @@
+package com.mirea.kt.phonebookapp.util;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Tag filter like {@code work & (family | friends)}: {@code &} is AND, {@code |} is OR, AND binds tighter,
+ * parentheses group. Tags are compared case-insensitively and may contain spaces ("close friends").
+ * Evaluated over per-tag bitmaps of contact ids, so a filter costs a few bitwise operations.
+ */
+public abstract class TagExpression {
+
+    private TagExpression() {
+    }
+
+    /**
+     * @param tag returns the bitmap of a normalized tag (see {@link #normalizeTag}), null if nobody has it
+     * @return a new bitmap, safe to modify
+     */
+    public abstract RoaringBitmap evaluate(Function<String, RoaringBitmap> tag);
+
+    public static String normalizeTag(String tag) {
+        return tag.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is empty or malformed
+     */
+    public static TagExpression parse(String expression) {
+        Parser parser = new Parser(expression);
+        TagExpression result = parser.parseOr();
+        parser.skipWhitespace();
+
+        if (parser.position != expression.length()) {
+            throw new IllegalArgumentException("Unexpected '" + expression.charAt(parser.position) +
+                    "' at " + parser.position);
+        }
+
+        return result;
+    }
+
+    private static final class Tag extends TagExpression {
+
+        private final String name;
+
+        private Tag(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> tag) {
+            RoaringBitmap bitmap = tag.apply(name);
+            return bitmap == null ? new RoaringBitmap() : bitmap.clone();
+        }
+    }
+
+    private static final class And extends TagExpression {
+
+        private final List<TagExpression> operands;
+
+        private And(List<TagExpression> operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> tag) {
+            RoaringBitmap[] bitmaps = new RoaringBitmap[operands.size()];
+            for (int i = 0; i < bitmaps.length; i++) {
+                bitmaps[i] = operands.get(i).evaluate(tag);
+            }
+            return FastAggregation.and(bitmaps);
+        }
+    }
+
+    private static final class Or extends TagExpression {
+
+        private final List<TagExpression> operands;
+
+        private Or(List<TagExpression> operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> tag) {
+            RoaringBitmap[] bitmaps = new RoaringBitmap[operands.size()];
+            for (int i = 0; i < bitmaps.length; i++) {
+                bitmaps[i] = operands.get(i).evaluate(tag);
+            }
+            return FastAggregation.or(bitmaps);
+        }
+    }
+
+    private static final class Parser {
+
+        private final String expression;
+        private int position;
+
+        private Parser(String expression) {
+            this.expression = expression;
+        }
+
+        private TagExpression parseOr() {
+            List<TagExpression> operands = new ArrayList<>(2);
+            operands.add(parseAnd());
+
+            while (accept('|')) {
+                operands.add(parseAnd());
+            }
+
+            return operands.size() == 1 ? operands.get(0) : new Or(operands);
+        }
+
+        private TagExpression parseAnd() {
+            List<TagExpression> operands = new ArrayList<>(2);
+            operands.add(parseOperand());
+
+            while (accept('&')) {
+                operands.add(parseOperand());
+            }
+
+            return operands.size() == 1 ? operands.get(0) : new And(operands);
+        }
+
+        private TagExpression parseOperand() {
+            if (accept('(')) {
+                TagExpression inner = parseOr();
+
+                if (!accept(')')) {
+                    throw new IllegalArgumentException("Expected ')' at " + position);
+                }
+
+                return inner;
+            }
+
+            int start = position;
+            while (position < expression.length() && "&|()".indexOf(expression.charAt(position)) < 0) {
+                position++;
+            }
+
+            String name = normalizeTag(expression.substring(start, position));
+
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Expected tag at " + start);
+            }
+
+            return new Tag(name);
+        }
+
+        private boolean accept(char c) {
+            skipWhitespace();
+
+            if (position < expression.length() && expression.charAt(position) == c) {
+                position++;
+                return true;
+            }
+
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+        }
+    }
+}
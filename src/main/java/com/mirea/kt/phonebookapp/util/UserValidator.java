@@ -1,9 +1,8 @@
 package com.mirea.kt.phonebookapp.util;
 
 import com.mirea.kt.phonebookapp.models.User;
-import com.mirea.kt.phonebookapp.services.UserDetailsService;
+import com.mirea.kt.phonebookapp.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
@@ -11,11 +10,11 @@ import org.springframework.validation.Validator;
 @Component
 public class UserValidator implements Validator {
 
-    private final UserDetailsService userDetailsService;
+    private final UserService userService;
 
     @Autowired
-    public UserValidator(UserDetailsService userDetailsService) {
-        this.userDetailsService = userDetailsService;
+    public UserValidator(UserService userService) {
+        this.userService = userService;
     }
 
     @Override
@@ -27,12 +26,8 @@ public class UserValidator implements Validator {
     public void validate(Object o, Errors errors) {
         User user = (User) o;
 
-        try {
-            userDetailsService.loadUserByUsername(user.getLogin());
-        } catch (UsernameNotFoundException ignored) {
-            return;
+        if (userService.isLoginTaken(user.getLogin())) {
+            errors.rejectValue("login", "", "User with this login has already created");
         }
-
-        errors.rejectValue("login", "", "User with this login has already created");
     }
 }
@@ -0,0 +1,126 @@
+package com.mirea.kt.phonebookapp.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory indexes of users' contacts, bounded by their estimated size in bytes. Each index remembers the
+ * user's contacts_version it reflects. Changes are applied in version order under the index's monitor; a
+ * change that skips a version, or a write that commits while an index is being built, drops the index, and
+ * the next read builds it again. So an index never misses a committed write for longer than the write's
+ * event takes to arrive.
+ */
+public class VersionedIndexCache<T> {
+
+    private final Cache<Integer, Entry<T>> entries;
+    private final ToLongFunction<T> sizer;
+    private final IntToLongFunction versions;
+
+    /**
+     * @param sizer    estimated size of an index in bytes
+     * @param versions reads the user's current contacts_version from the database
+     */
+    public VersionedIndexCache(long maxBytes, long ttlMinutes, ToLongFunction<T> sizer, IntToLongFunction versions) {
+        this.sizer = sizer;
+        this.versions = versions;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Integer userId, Entry<T> entry) -> entry.weight)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    public void monitor(MeterRegistry registry, String cacheName) {
+        CaffeineCacheMetrics.monitor(registry, entries, cacheName);
+    }
+
+    /**
+     * @return the user's index, built with {@code builder} if there is none. A built index is returned even
+     * when it can not be kept
+     */
+    public T get(int userId, IntFunction<T> builder) {
+        Entry<T> entry = entries.getIfPresent(userId);
+
+        if (entry != null) {
+            return entry.index;
+        }
+
+        long version = versions.applyAsLong(userId);
+        entry = new Entry<>(builder.apply(userId), version);
+        entry.weight = weigh(entry.index);
+        entries.put(userId, entry);
+
+        // A write committed after the version was read: the index may already have part of it, and its event
+        // may have come before the put and found nothing to update
+        if (versions.applyAsLong(userId) != version) {
+            entries.asMap().remove(userId, entry);
+        }
+
+        return entry.index;
+    }
+
+    public T getIfPresent(int userId) {
+        Entry<T> entry = entries.getIfPresent(userId);
+        return entry == null ? null : entry.index;
+    }
+
+    /**
+     * Applies the change of the write that moved the user's contacts to {@code version}, if the user has an
+     * index. A change the index already has is skipped.
+     */
+    public void apply(int userId, long version, Consumer<T> change) {
+        Entry<T> entry = entries.getIfPresent(userId);
+
+        if (entry == null) {
+            return;
+        }
+
+        boolean applied;
+        synchronized (entry.index) {
+            applied = version <= entry.version || entry.version + 1 == version;
+
+            if (applied && version > entry.version) {
+                change.accept(entry.index);
+                entry.version = version;
+                entry.weight = weigh(entry.index);
+            }
+        }
+
+        if (applied) {
+            // The weigher only runs when a value is put, replacing the entry with itself makes it see the new size
+            entries.asMap().replace(userId, entry, entry);
+        } else {
+            // A change in between is missing
+            entries.asMap().remove(userId, entry);
+        }
+    }
+
+    public void invalidate(int userId) {
+        entries.invalidate(userId);
+    }
+
+    private int weigh(T index) {
+        return (int) Math.min(sizer.applyAsLong(index), Integer.MAX_VALUE);
+    }
+
+    private static class Entry<T> {
+        private final T index;
+        // Guarded by the index's monitor
+        private long version;
+        private volatile int weight;
+
+        Entry(T index, long version) {
+            this.index = index;
+            this.version = version;
+        }
+    }
+}
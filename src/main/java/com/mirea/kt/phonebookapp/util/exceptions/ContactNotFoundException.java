@@ -0,0 +1,4 @@
+package com.mirea.kt.phonebookapp.util.exceptions;
+
+public class ContactNotFoundException extends RuntimeException{
+}
@@ -0,0 +1,89 @@
+package com.mirea.kt.phonebookapp.util.mappers;
+
+import com.mirea.kt.phonebookapp.dto.ContactDTO;
+import com.mirea.kt.phonebookapp.dto.PhoneNumberDTO;
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.util.TagExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Component
+public class ContactMapper {
+
+    public Contact toContact(ContactDTO contactDTO) {
+        Contact contact = new Contact();
+        contact.setName(contactDTO.getName());
+        contact.setImageName(contactDTO.getImageName());
+
+        List<PhoneNumberDTO> numbersDTO = contactDTO.getNumbers();
+        List<PhoneNumber> numbers = new ArrayList<>(numbersDTO == null ? 0 : numbersDTO.size());
+
+        if (numbersDTO != null) {
+            for (PhoneNumberDTO numberDTO : numbersDTO) {
+                numbers.add(toPhoneNumber(numberDTO));
+            }
+        }
+
+        contact.setNumbers(numbers);
+        contact.setTags(toTags(contactDTO.getTags()));
+        return contact;
+    }
+
+    public ContactDTO toContactDTO(Contact contact) {
+        ContactDTO contactDTO = new ContactDTO();
+        contactDTO.setName(contact.getName());
+        contactDTO.setImageName(contact.getImageName());
+
+        List<PhoneNumber> numbers = contact.getNumbers();
+        List<PhoneNumberDTO> numbersDTO = new ArrayList<>(numbers == null ? 0 : numbers.size());
+
+        if (numbers != null) {
+            for (PhoneNumber number : numbers) {
+                numbersDTO.add(toPhoneNumberDTO(number));
+            }
+        }
+
+        contactDTO.setNumbers(numbersDTO);
+        contactDTO.setTags(contact.getTags() == null ? null : new LinkedHashSet<>(contact.getTags()));
+        return contactDTO;
+    }
+
+    /**
+     * Tags are matched ignoring case, so of the ones differing only in case the first spelling is kept
+     */
+    private Set<String> toTags(Set<String> tagsDTO) {
+        Set<String> tags = new LinkedHashSet<>();
+
+        if (tagsDTO != null) {
+            Set<String> names = new HashSet<>();
+
+            for (String tag : tagsDTO) {
+                if (names.add(TagExpression.normalizeTag(tag))) {
+                    tags.add(tag.trim());
+                }
+            }
+        }
+
+        return tags;
+    }
+
+    public PhoneNumber toPhoneNumber(PhoneNumberDTO phoneNumberDTO) {
+        PhoneNumber phoneNumber = new PhoneNumber();
+        phoneNumber.setNumber(phoneNumberDTO.getNumber());
+        phoneNumber.setNumberType(phoneNumberDTO.getNumberType());
+        return phoneNumber;
+    }
+
+    public PhoneNumberDTO toPhoneNumberDTO(PhoneNumber phoneNumber) {
+        PhoneNumberDTO phoneNumberDTO = new PhoneNumberDTO();
+        phoneNumberDTO.setNumber(phoneNumber.getNumber());
+        phoneNumberDTO.setNumberType(phoneNumber.getNumberType());
+        return phoneNumberDTO;
+    }
+}
@@ -0,0 +1,16 @@
+package com.mirea.kt.phonebookapp.util.mappers;
+
+import com.mirea.kt.phonebookapp.dto.AuthenticationDTO;
+import com.mirea.kt.phonebookapp.models.User;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserMapper {
+
+    public User toUser(AuthenticationDTO authenticationDTO) {
+        User user = new User();
+        user.setLogin(authenticationDTO.getLogin());
+        user.setPassword(authenticationDTO.getPassword());
+        return user;
+    }
+}
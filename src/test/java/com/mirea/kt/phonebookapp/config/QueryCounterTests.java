@@ -0,0 +1,76 @@
+package com.mirea.kt.phonebookapp.config;
+
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(QueryCounter.class)
+class QueryCounterTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private Contact contact;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setLogin("user");
+        user.setPassword("hash");
+        entityManager.persist(user);
+
+        contact = new Contact();
+        contact.setName("Anna");
+        contact.setOwner(user);
+        contact.setNumbers(new ArrayList<>(List.of(number("89990001122", contact), number("84950001122", contact))));
+        entityManager.persist(contact);
+
+        entityManager.flush();
+        entityManager.clear();
+        queryCounter.reset();
+    }
+
+    @Test
+    void countsStatementsLoadsAndFetchesOfTheCurrentThread() {
+        Contact loaded = entityManager.find(Contact.class, contact.getId());
+
+        assertEquals(1, queryCounter.getStatements());
+        assertEquals(1, queryCounter.getEntityLoads());
+        assertEquals(0, queryCounter.getCollectionFetches());
+
+        assertEquals(2, loaded.getNumbers().size());
+
+        assertEquals(2, queryCounter.getStatements());
+        assertEquals(3, queryCounter.getEntityLoads());
+        assertEquals(1, queryCounter.getCollectionFetches());
+        assertEquals(0, CompletableFuture.supplyAsync(queryCounter::getStatements).join());
+
+        queryCounter.reset();
+        assertEquals(0, queryCounter.getStatements());
+    }
+
+    private static PhoneNumber number(String value, Contact contact) {
+        PhoneNumber number = new PhoneNumber();
+        number.setNumber(value);
+        number.setNumberType(NumberType.CELLULAR);
+        number.setContact(contact);
+        return number;
+    }
+}
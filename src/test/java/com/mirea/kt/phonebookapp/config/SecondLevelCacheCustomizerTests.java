@@ -0,0 +1,155 @@
+package com.mirea.kt.phonebookapp.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import com.mirea.kt.phonebookapp.services.impls.ContactServiceImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Service calls commit on their own, the cache is only updated on commit
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "entity_cache_contact_size=500"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SecondLevelCacheCustomizer.class, ContactServiceImpl.class})
+class SecondLevelCacheCustomizerTests {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactServiceImpl contactService;
+
+    private Statistics statistics;
+    private User user;
+    private List<Integer> ids;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setLogin("user" + USERS.incrementAndGet());
+        user.setPassword("hash");
+        userRepository.save(user);
+
+        ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Contact contact = contact("Contact " + i, "8999000" + i, "work");
+            contactService.addContact(user.getId(), contact);
+            ids.add(contact.getId());
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void readsCachedContactsWithoutStatements() {
+        warmUp();
+        statistics.clear();
+
+        List<Contact> contacts = contactService.getContactsByIds(ids);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(3, statistics.getDomainDataRegionStatistics("contact").getHitCount());
+        assertEquals(List.of("Contact 0", "Contact 1", "Contact 2"), names(contacts));
+        assertEquals("89990002", contacts.get(2).getNumbers().get(0).getNumber());
+        assertEquals(Set.of("work"), contacts.get(2).getTags());
+    }
+
+    @Test
+    void writesInvalidateCachedContacts() {
+        warmUp();
+
+        Contact update = contact("Renamed", "84950000", "family");
+        update.setId(ids.get(0));
+        contactService.updateContact(user.getId(), update);
+        contactService.deleteContact(user.getId(), ids.get(1));
+
+        List<Contact> contacts = contactService.getContactsByIds(ids);
+
+        assertEquals(List.of("Renamed", "Contact 2"), names(contacts));
+        assertEquals(1, contacts.get(0).getNumbers().size());
+        assertEquals("84950000", contacts.get(0).getNumbers().get(0).getNumber());
+        assertEquals(Set.of("family"), contacts.get(0).getTags());
+    }
+
+    @Test
+    void writesOfOtherContactsKeepCachedOnes() {
+        warmUp();
+
+        // Bumps the owner's contacts_version with a bulk update
+        contactService.addContact(user.getId(), contact("Added", "89991112233", "work"));
+        statistics.clear();
+
+        contactService.getContactsByIds(ids);
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void regionsAreSizedFromProperties() {
+        JCacheRegionFactory regionFactory = (JCacheRegionFactory) entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+
+        assertEquals(Set.of("contact", "contact_numbers", "contact_tags", "phone_number"),
+                Set.of(statistics.getSecondLevelCacheRegionNames()));
+        // The class literal is raw, there is no other way to ask the cache for its configuration
+        @SuppressWarnings("unchecked")
+        CaffeineConfiguration<Object, Object> configuration = regionFactory.getCacheManager().getCache("contact")
+                .getConfiguration(CaffeineConfiguration.class);
+        assertEquals(500, configuration.getMaximumSize().getAsLong());
+    }
+
+    private void warmUp() {
+        contactService.getContactsByIds(ids);
+    }
+
+    private static List<String> names(List<Contact> contacts) {
+        List<String> names = new ArrayList<>();
+        for (Contact contact : contacts) {
+            names.add(contact.getName());
+        }
+        return names;
+    }
+
+    private static Contact contact(String name, String number, String tag) {
+        Contact contact = new Contact();
+        contact.setName(name);
+        contact.setTags(new HashSet<>(Set.of(tag)));
+
+        PhoneNumber phoneNumber = new PhoneNumber();
+        phoneNumber.setNumber(number);
+        phoneNumber.setNumberType(NumberType.CELLULAR);
+        contact.setNumbers(new ArrayList<>(List.of(phoneNumber)));
+        return contact;
+    }
+}
@@ -0,0 +1,78 @@
+package com.mirea.kt.phonebookapp.controllers;
+
+import com.mirea.kt.phonebookapp.security.BoundedPasswordEncoder;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:auth;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "password_bcrypt_strength=4"
+})
+@AutoConfigureMockMvc
+class AuthControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ConnectionRecordingEncoder passwordEncoder;
+
+    @Test
+    void hashesPasswordWithoutHoldingConnection() throws Exception {
+        mockMvc.perform(post("/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"login\": \"registered\", \"password\": \"password\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals(List.of(0), passwordEncoder.activeConnections);
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean(destroyMethod = "shutdown")
+        @Primary
+        ConnectionRecordingEncoder connectionRecordingEncoder(DataSource dataSource) {
+            return new ConnectionRecordingEncoder((HikariDataSource) dataSource);
+        }
+    }
+
+    /**
+     * Records the connections taken from the pool while each hash waits for the encoder
+     */
+    static class ConnectionRecordingEncoder extends BoundedPasswordEncoder {
+
+        private final HikariDataSource dataSource;
+        private final List<Integer> activeConnections = new CopyOnWriteArrayList<>();
+
+        ConnectionRecordingEncoder(HikariDataSource dataSource) {
+            super(4, 1, 1);
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            activeConnections.add(dataSource.getHikariPoolMXBean().getActiveConnections());
+            return super.encode(rawPassword);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.mirea.kt.phonebookapp.controllers;
+
+import com.mirea.kt.phonebookapp.services.impls.AvatarStorageServiceImpl;
+import com.mirea.kt.phonebookapp.services.impls.AvatarThumbnailServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AvatarControllerTests {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R'};
+
+    @TempDir
+    Path root;
+
+    private AvatarStorageServiceImpl storage;
+    private AvatarThumbnailServiceImpl thumbnails;
+    private MockMvc mockMvc;
+    private String name;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new AvatarStorageServiceImpl(root.resolve("avatars").toString(), 1 << 20);
+        thumbnails = new AvatarThumbnailServiceImpl(storage, root.resolve("thumbnails").toString(),
+                new int[]{64, 256}, 40_000_000, 1, 10);
+        name = storage.store(new ByteArrayInputStream(PNG));
+        mockMvc = MockMvcBuilders.standaloneSetup(new AvatarController(storage, thumbnails)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnails.shutdown();
+    }
+
+    @Test
+    void servesWholeImageWithCacheHeaders() throws Exception {
+        String eTag = "\"" + name.substring(0, 64) + "\"";
+
+        mockMvc.perform(get("/avatar/" + name))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(PNG))
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"));
+
+        mockMvc.perform(get("/avatar/" + name).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void servesSingleRanges() throws Exception {
+        mockMvc.perform(get("/avatar/" + name).header(HttpHeaders.RANGE, "bytes=1-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1-3/16"))
+                .andExpect(content().bytes(Arrays.copyOfRange(PNG, 1, 4)));
+
+        mockMvc.perform(get("/avatar/" + name).header(HttpHeaders.RANGE, "bytes=-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(PNG, 12, 16)));
+
+        mockMvc.perform(get("/avatar/" + name).header(HttpHeaders.RANGE, "bytes=16-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */16"));
+
+        mockMvc.perform(get("/avatar/" + name)
+                        .header(HttpHeaders.RANGE, "bytes=1-3")
+                        .header(HttpHeaders.IF_RANGE, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(PNG));
+    }
+
+    @Test
+    void servesOriginalUntilThumbnailIsReady() throws Exception {
+        BufferedImage image = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        String photo = storage.store(new ByteArrayInputStream(png.toByteArray()));
+        String eTag = "\"" + photo.substring(0, 64) + "-64\"";
+
+        mockMvc.perform(get("/avatar/" + photo).param("size", "64"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(png.toByteArray()))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+
+        for (int i = 0; i < 500 && thumbnails.findThumbnail(photo, 64) == null; i++) {
+            Thread.sleep(10);
+        }
+
+        byte[] thumbnail = mockMvc.perform(get("/avatar/" + photo).param("size", "64"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(64, ImageIO.read(new ByteArrayInputStream(thumbnail)).getWidth());
+
+        mockMvc.perform(get("/avatar/" + photo).param("size", "64").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void unsupportedSizesAreBadRequests() throws Exception {
+        mockMvc.perform(get("/avatar/" + name).param("size", "100")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unknownNamesAreNotFound() throws Exception {
+        mockMvc.perform(get("/avatar/" + name.replace(".png", ".gif"))).andExpect(status().isNotFound());
+        mockMvc.perform(get("/avatar/avatar.png")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,235 @@
+package com.mirea.kt.phonebookapp.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.security.JWTUtil;
+import com.mirea.kt.phonebookapp.services.AvatarStorageService;
+import com.mirea.kt.phonebookapp.services.ContactService;
+import com.mirea.kt.phonebookapp.services.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Same context as EndpointQueryCountTests, so it is started once for both
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:query-count;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "password_bcrypt_strength=4",
+        "avatar_storage_dir=target/test-avatars",
+        "avatar_thumbnail_dir=target/test-avatars/thumbnails"
+})
+@AutoConfigureMockMvc
+class ContactControllerTests {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ContactService contactService;
+
+    @Autowired
+    private AvatarStorageService avatarStorageService;
+
+    @Autowired
+    private JWTUtil jwtUtil;
+
+    private User user;
+    // In name order: Anna(1), Boris(2), Boris(3), Vera(0), Yuri(4); ids ascending in creation order
+    private final List<Integer> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setLogin("controller" + USERS.incrementAndGet());
+        user.setPassword("password");
+        userService.addUser(user);
+
+        ids.clear();
+        for (String name : new String[]{"Vera", "Anna", "Boris", "Boris", "Yuri"}) {
+            Contact contact = new Contact();
+            contact.setName(name);
+            contact.setTags(new HashSet<>(name.startsWith("B") ? Set.of("work", "family") : Set.of()));
+            contact.setNumbers(new ArrayList<>());
+            contactService.addContact(user.getId(), contact);
+            ids.add(contact.getId());
+        }
+    }
+
+    @Test
+    void pagesByIdUntilLastPage() throws Exception {
+        JsonNode first = page("limit", "2");
+        assertEquals(List.of(ids.get(0), ids.get(1)), contactIds(first.get("contacts")));
+        assertEquals(ids.get(1).intValue(), first.get("nextCursor").asInt());
+
+        JsonNode second = page("limit", "2", "after", first.get("nextCursor").asText());
+        assertEquals(List.of(ids.get(2), ids.get(3)), contactIds(second.get("contacts")));
+        assertEquals(ids.get(3).intValue(), second.get("nextCursor").asInt());
+
+        JsonNode last = page("limit", "2", "after", second.get("nextCursor").asText());
+        assertEquals(List.of(ids.get(4)), contactIds(last.get("contacts")));
+        assertTrue(last.get("nextCursor").isNull());
+    }
+
+    @Test
+    void pageThatEndsTheBookHasNoCursor() throws Exception {
+        JsonNode whole = page("limit", "5");
+        assertEquals(ids, contactIds(whole.get("contacts")));
+        assertTrue(whole.get("nextCursor").isNull());
+
+        JsonNode beyond = page("limit", "5", "after", String.valueOf(ids.get(4)));
+        assertTrue(beyond.get("contacts").isEmpty());
+        assertTrue(beyond.get("nextCursor").isNull());
+    }
+
+    @Test
+    void pagesByNameBreakingTiesById() throws Exception {
+        JsonNode first = page("limit", "2", "sort", "NAME");
+        assertEquals(List.of(ids.get(1), ids.get(2)), contactIds(first.get("contacts")));
+
+        // The cursor sits between two contacts with the same name
+        JsonNode second = page("limit", "2", "sort", "NAME", "after", first.get("nextCursor").asText());
+        assertEquals(List.of(ids.get(3), ids.get(0)), contactIds(second.get("contacts")));
+
+        JsonNode last = page("limit", "2", "sort", "NAME", "after", second.get("nextCursor").asText());
+        assertEquals(List.of(ids.get(4)), contactIds(last.get("contacts")));
+        assertTrue(last.get("nextCursor").isNull());
+    }
+
+    @Test
+    void listsContactsWithTheirTags() throws Exception {
+        MvcResult result = mockMvc.perform(authorized(get("/contact"))).andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode contacts = objectMapper.readTree(body);
+
+        assertEquals(ids, contactIds(contacts));
+        assertEquals(Set.of("work", "family"), tags(contacts.get(String.valueOf(ids.get(2)))));
+        assertEquals(Set.of("work", "family"), tags(contacts.get(String.valueOf(ids.get(3)))));
+        assertEquals(Set.of(), tags(contacts.get(String.valueOf(ids.get(4)))));
+    }
+
+    @Test
+    void answersNotModifiedUntilContactsChange() throws Exception {
+        MvcResult result = mockMvc.perform(authorized(get("/contact"))).andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(authorized(get("/contact")).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().bytes(new byte[0]));
+
+        contactService.deleteContact(user.getId(), ids.get(0));
+
+        result = mockMvc.perform(authorized(get("/contact")).header(HttpHeaders.IF_NONE_MATCH, eTag)).andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertNotEquals(eTag, result.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(ids.subList(1, 5), contactIds(objectMapper.readTree(body)));
+    }
+
+    @Test
+    void storesAvatarsOfOwnContactsOnly() throws Exception {
+        // The storage directory outlives the run, the content has to be new every time
+        byte[] png = ("\u0089PNG\r\n\u001A\n\u0000\u0000\u0000\rIHDR" + UUID.randomUUID())
+                .getBytes(StandardCharsets.ISO_8859_1);
+        String name = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(png)) + ".png";
+
+        mockMvc.perform(authorized(post("/contact/" + Integer.MAX_VALUE + "/avatar"))
+                        .contentType(MediaType.IMAGE_PNG)
+                        .content(png))
+                .andExpect(status().isNotFound());
+        assertNull(avatarStorageService.find(name));
+
+        mockMvc.perform(authorized(post("/contact/" + ids.get(0) + "/avatar"))
+                        .contentType(MediaType.IMAGE_PNG)
+                        .content(png))
+                .andExpect(status().isOk());
+        assertNotNull(avatarStorageService.find(name));
+    }
+
+    @Test
+    void rejectsInvalidPageParams() throws Exception {
+        mockMvc.perform(authorized(get("/contact").param("limit", "0"))).andExpect(status().isBadRequest());
+        mockMvc.perform(authorized(get("/contact").param("limit", "1001"))).andExpect(status().isBadRequest());
+        mockMvc.perform(authorized(get("/contact").param("limit", "1000"))).andExpect(status().isOk());
+        // A name cursor has to be one of the caller's contacts
+        mockMvc.perform(authorized(get("/contact").param("limit", "2").param("sort", "NAME")
+                .param("after", String.valueOf(Integer.MAX_VALUE)))).andExpect(status().isBadRequest());
+    }
+
+    private JsonNode page(String... params) throws Exception {
+        MockHttpServletRequestBuilder request = get("/contact");
+        for (int i = 0; i < params.length; i += 2) {
+            request.param(params[i], params[i + 1]);
+        }
+
+        String body = mockMvc.perform(authorized(request))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private static List<Integer> contactIds(JsonNode contacts) {
+        List<Integer> ids = new ArrayList<>();
+        for (Iterator<String> names = contacts.fieldNames(); names.hasNext(); ) {
+            ids.add(Integer.valueOf(names.next()));
+        }
+        return ids;
+    }
+
+    private static Set<String> tags(JsonNode contact) {
+        Set<String> tags = new HashSet<>();
+        contact.get("tags").forEach(tag -> tags.add(tag.asText()));
+        return tags;
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+        String token = jwtUtil.generateTokens(user.getId(), user.getLogin()).getAccessToken();
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+}
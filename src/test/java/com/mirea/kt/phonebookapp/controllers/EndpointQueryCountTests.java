@@ -0,0 +1,330 @@
+package com.mirea.kt.phonebookapp.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.models.enums.ContactSortOrder;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import com.mirea.kt.phonebookapp.security.JWTUtil;
+import com.mirea.kt.phonebookapp.services.ContactService;
+import com.mirea.kt.phonebookapp.services.UserService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Drives every ContactController and AuthController endpoint against books of 1, 100 and 10 000 contacts
+ * and fails when a request prepares more SQL statements than its bound. The bounds do not depend on the
+ * book size, so an N+1 pattern or a collection loaded one by one fails the 100 and 10k cases. Writes go
+ * to their own copies of the books, so reads can check they saw every contact.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:query-count;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "password_bcrypt_strength=4",
+        "avatar_storage_dir=target/test-avatars",
+        "avatar_thumbnail_dir=target/test-avatars/thumbnails"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointQueryCountTests {
+
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ContactService contactService;
+
+    @Autowired
+    private JWTUtil jwtUtil;
+
+    private Statistics statistics;
+    private final Map<Integer, User> books = new HashMap<>();
+    private final Map<Integer, User> writableBooks = new HashMap<>();
+    private int registered;
+
+    @BeforeAll
+    void createBooks() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (int size : new int[]{1, 100, 10_000}) {
+            books.put(size, book("book" + size, size));
+            writableBooks.put(size, book("writable" + size, size));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void listAll(int size) throws Exception {
+        MvcResult result = assertStatements(3, authorized(get("/contact"), size));
+        assertEquals(size, objectMapper.readTree(result.getResponse().getContentAsString()).size());
+
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        MvcResult notModified = assertStatements(1, 304,
+                authorized(get("/contact"), size).header(HttpHeaders.IF_NONE_MATCH, eTag));
+        assertEquals(0, notModified.getResponse().getContentAsByteArray().length);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void listPage(int size) throws Exception {
+        JsonNode page = json(assertStatements(3, authorized(get("/contact"), size)
+                .param("limit", "100")
+                .param("sort", "NAME")));
+        assertEquals(Math.min(size, 100), page.get("contacts").size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void search(int size) throws Exception {
+        // The first search builds the name index, reading the contacts version before and after
+        JsonNode found = json(assertStatements(5, authorized(get("/contact/search"), size)
+                .param("q", "contact")
+                .param("limit", "100")));
+        assertEquals(Math.min(size, 100), found.size());
+
+        found = json(assertStatements(3, authorized(get("/contact/search"), size)
+                .param("q", "contact")
+                .param("limit", "100")));
+        assertEquals(Math.min(size, 100), found.size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void filterByTags(int size) throws Exception {
+        // The first filter builds the tag index: the user's tags and the contacts version before and after
+        JsonNode page = json(assertStatements(5, authorized(get("/contact/filter"), size)
+                .param("tags", "work | family")));
+        assertEquals(Math.min(size, 100), page.get("contacts").size());
+
+        page = json(assertStatements(2, authorized(get("/contact/filter"), size)
+                .param("tags", "work | family")));
+        assertEquals(Math.min(size, 100), page.get("contacts").size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void changes(int size) throws Exception {
+        JsonNode changes = json(assertStatements(3, authorized(get("/contact/changes"), size)));
+        assertEquals(size, changes.get("changed").size());
+
+        assertStatements(3, authorized(get("/contact/changes"), size).param("since", changes.get("token").asText()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void findByNumber(int size) throws Exception {
+        // The first lookup builds the number index, reading the contacts version before and after
+        assertStatements(5, authorized(get("/contact/by-number/" + number(size - 1)), size));
+        assertStatements(3, authorized(get("/contact/by-number/" + number(size - 1)), size));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void export(int size) throws Exception {
+        MvcResult result = assertStatements(1, authorized(get("/contact/export"), size).param("format", "vcf"));
+        assertEquals(size, result.getResponse().getContentAsString().split("BEGIN:VCARD").length - 1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void addUpdateDelete(int size) throws Exception {
+        String body = "{\"name\":\"Added\",\"tags\":[\"new\"]," +
+                "\"numbers\":[{\"number\":\"89001234567\",\"numberType\":\"CELLULAR\"}]}";
+        // One more than the insert itself when the contact or number sequence hands out its next block
+        assertStatements(6, writable(post("/contact"), size).contentType(MediaType.APPLICATION_JSON).content(body));
+
+        // Builds the number index if this book has none yet
+        JsonNode added = json(assertStatements(5, writable(get("/contact/by-number/89001234567"), size)));
+        int id = Integer.parseInt(added.fieldNames().next());
+
+        String update = "{\"name\":\"Updated\",\"tags\":[\"other\"]," +
+                "\"numbers\":[{\"number\":\"89001234568\",\"numberType\":\"HOME\"}]}";
+        // The new number may take the next block of the number sequence too
+        assertStatements(11, writable(put("/contact/" + id), size).contentType(MediaType.APPLICATION_JSON).content(update));
+        assertStatements(9, writable(delete("/contact/" + id), size));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void uploadAvatar(int size) throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R'};
+
+        assertStatements(5, writable(post("/contact/" + firstContactId(size) + "/avatar"), size)
+                .contentType(MediaType.IMAGE_PNG)
+                .content(png));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void importBatch(int size) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            body.append("{\"name\":\"Imported ").append(i).append("\",\"numbers\":[{\"number\":\"8")
+                    .append(String.format("%010d", i)).append("\",\"numberType\":\"CELLULAR\"}]}\n");
+        }
+
+        // Grows with the batch, by a sequence call per 50 contacts and numbers, never with the book
+        JsonNode result = json(assertStatements(13, writable(post("/contact/batch"), size)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body.toString())));
+        assertEquals(200, result.get("imported").asInt());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void loginRefreshLogout(int size) throws Exception {
+        JsonNode tokens = json(assertStatements(1, post("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(credentials(books.get(size).getLogin()))));
+
+        String refresh = "{\"refresh-token\":\"" + tokens.get("refresh-token").asText() + "\"}";
+        tokens = json(assertStatements(2, post("/refresh").contentType(MediaType.APPLICATION_JSON).content(refresh)));
+
+        refresh = "{\"refresh-token\":\"" + tokens.get("refresh-token").asText() + "\"}";
+        assertStatements(2, post("/logout")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokens.get("jwt-token").asText())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(refresh));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 10_000})
+    void registerAndCheckLogin(int size) throws Exception {
+        String login = "registered" + size + "-" + registered++;
+
+        assertTrue(json(assertStatements(1, get("/auth/available").param("login", login))).get("available").asBoolean());
+        assertStatements(1, post("/register").contentType(MediaType.APPLICATION_JSON).content(credentials(login)));
+        assertFalse(json(assertStatements(1, get("/auth/available").param("login", books.get(size).getLogin())))
+                .get("available").asBoolean());
+    }
+
+    private MvcResult assertStatements(long maxStatements, MockHttpServletRequestBuilder request) throws Exception {
+        return assertStatements(maxStatements, 200, request);
+    }
+
+    /**
+     * Performs the request, waiting for a streamed body, and checks it returned {@code status} within
+     * {@code maxStatements}.
+     */
+    private MvcResult assertStatements(long maxStatements, int status, MockHttpServletRequestBuilder request)
+            throws Exception {
+        statistics.clear();
+
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result.getAsyncResult();
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+
+        assertEquals(status, result.getResponse().getStatus(), result.getRequest().getMethod() + " " +
+                result.getRequest().getRequestURI());
+
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= maxStatements, result.getRequest().getMethod() + " " +
+                result.getRequest().getRequestURI() + " prepared " + statements + " statements, at most " +
+                maxStatements + " expected");
+        return result;
+    }
+
+    private User book(String login, int size) {
+        User user = new User();
+        user.setLogin(login);
+        user.setPassword(PASSWORD);
+        userService.addUser(user);
+
+        Iterator<Contact> contacts = IntStream.range(0, size).mapToObj(EndpointQueryCountTests::contact).iterator();
+        contactService.importContacts(user.getId(), contacts);
+        return user;
+    }
+
+    private int firstContactId(int size) {
+        return contactService.getContactsPage(writableBooks.get(size).getId(), null, 1, ContactSortOrder.ID).get(0).getId();
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request, int size) {
+        return authorized(request, books.get(size));
+    }
+
+    private MockHttpServletRequestBuilder writable(MockHttpServletRequestBuilder request, int size) {
+        return authorized(request, writableBooks.get(size));
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request, User user) {
+        String token = jwtUtil.generateTokens(user.getId(), user.getLogin()).getAccessToken();
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+
+    private JsonNode json(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private static String credentials(String login) {
+        return "{\"login\":\"" + login + "\",\"password\":\"" + PASSWORD + "\"}";
+    }
+
+    private static Contact contact(int i) {
+        Contact contact = new Contact();
+        contact.setName("Contact " + i);
+        contact.setTags(new HashSet<>(i % 2 == 0 ? Set.of("work") : Set.of("family", "friends")));
+
+        PhoneNumber cellular = new PhoneNumber();
+        cellular.setNumber(number(i));
+        cellular.setNumberType(NumberType.CELLULAR);
+        PhoneNumber home = new PhoneNumber();
+        home.setNumber("8495" + String.format("%07d", i));
+        home.setNumberType(NumberType.HOME);
+
+        contact.setNumbers(new ArrayList<>(List.of(cellular, home)));
+        return contact;
+    }
+
+    private static String number(int i) {
+        return "8999" + String.format("%07d", i);
+    }
+}
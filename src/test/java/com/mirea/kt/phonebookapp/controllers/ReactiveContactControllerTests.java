@@ -0,0 +1,184 @@
+package com.mirea.kt.phonebookapp.controllers;
+
+import com.mirea.kt.phonebookapp.config.LoginFilterLoader;
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import com.mirea.kt.phonebookapp.security.JWTUtil;
+import com.mirea.kt.phonebookapp.services.AvatarThumbnailService;
+import com.mirea.kt.phonebookapp.services.ContactService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("reactive")
+@AutoConfigureWebTestClient
+class ReactiveContactControllerTests {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactService contactService;
+
+    @Autowired
+    private JWTUtil jwtUtil;
+
+    private User user;
+    private Contact anna;
+    private Contact andrey;
+    private Contact boris;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setLogin("reactive" + System.nanoTime());
+        user.setPassword("hash");
+        userRepository.save(user);
+        token = "Bearer " + jwtUtil.generateTokens(user.getId(), user.getLogin()).getAccessToken();
+
+        anna = contact("Anna", Set.of("work"), number("+7 999 000-11-22", NumberType.CELLULAR));
+        contactService.addContact(user.getId(), anna);
+        andrey = contact("Andrey", Set.of(), number("84950001122", NumberType.HOME));
+        contactService.addContact(user.getId(), andrey);
+        boris = contact("Boris", Set.of());
+        contactService.addContact(user.getId(), boris);
+    }
+
+    @Test
+    void listsContactsWithETag() {
+        String eTag = webTestClient.get().uri("/contact")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$['" + anna.getId() + "'].name").isEqualTo("Anna")
+                .jsonPath("$['" + anna.getId() + "'].numbers[0].numberType").isEqualTo("CELLULAR")
+                .jsonPath("$['" + anna.getId() + "'].tags[0]").isEqualTo("work")
+                .returnResult().getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/contact")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void listsEachContactWithItsOwnTags() {
+        Contact vera = contact("Vera", Set.of("family", "friends"),
+                number("89990003344", NumberType.CELLULAR), number("84950003344", NumberType.HOME));
+        contactService.addContact(user.getId(), vera);
+
+        webTestClient.get().uri("/contact")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(4)
+                .jsonPath("$['" + anna.getId() + "'].tags.length()").isEqualTo(1)
+                .jsonPath("$['" + andrey.getId() + "'].tags").isEmpty()
+                .jsonPath("$['" + boris.getId() + "'].tags").isEmpty()
+                .jsonPath("$['" + vera.getId() + "'].tags.length()").isEqualTo(2)
+                .jsonPath("$['" + vera.getId() + "'].numbers.length()").isEqualTo(2);
+    }
+
+    @Test
+    void searchFollowsWritesMadeThroughJpa() {
+        webTestClient.get().uri("/contact/search?q=an")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2);
+
+        Contact update = contact("Boris", Set.of());
+        update.setId(anna.getId());
+        contactService.updateContact(user.getId(), update);
+
+        webTestClient.get().uri("/contact/search?q=an")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$.*.name").isEqualTo("Andrey");
+    }
+
+    @Test
+    void findsContactByNumber() {
+        webTestClient.get().uri("/contact/by-number/89990001122")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$['" + anna.getId() + "'].name").isEqualTo("Anna");
+
+        webTestClient.get().uri("/contact/by-number/89990009999")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void rejectsMissingAndInvalidTokens() {
+        webTestClient.get().uri("/contact").exchange().expectStatus().isUnauthorized();
+        webTestClient.get().uri("/contact")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer invalid")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void startsWithoutServletOnlyBeans() {
+        assertTrue(applicationContext.getBeansOfType(LoginFilterLoader.class).isEmpty());
+        assertTrue(applicationContext.getBeansOfType(AvatarThumbnailService.class).isEmpty());
+        assertTrue(applicationContext.getBeansOfType(ReactiveUserDetailsService.class).isEmpty());
+    }
+
+    private static Contact contact(String name, Set<String> tags, PhoneNumber... numbers) {
+        Contact contact = new Contact();
+        contact.setName(name);
+        contact.setTags(tags);
+        contact.setNumbers(new ArrayList<>(List.of(numbers)));
+        return contact;
+    }
+
+    private static PhoneNumber number(String value, NumberType numberType) {
+        PhoneNumber number = new PhoneNumber();
+        number.setNumber(value);
+        number.setNumberType(numberType);
+        return number;
+    }
+}
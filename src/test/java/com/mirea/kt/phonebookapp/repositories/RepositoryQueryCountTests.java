@@ -0,0 +1,159 @@
+package com.mirea.kt.phonebookapp.repositories;
+
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactTag;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactsVersion;
+import com.mirea.kt.phonebookapp.repositories.projections.UserCredentials;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class RepositoryQueryCountTests {
+
+    private static final int CONTACTS = 50;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setLogin("user");
+        user.setPassword("hash");
+        entityManager.persist(user);
+
+        for (int i = 0; i < CONTACTS; i++) {
+            Contact contact = new Contact();
+            contact.setName("Contact " + i);
+            contact.setOwner(user);
+            contact.setNumbers(new ArrayList<>());
+            contact.setTags(new HashSet<>(List.of("all", "group " + i % 3)));
+            entityManager.persist(contact);
+
+            for (int j = 0; j < 2; j++) {
+                PhoneNumber number = new PhoneNumber();
+                number.setNumber("8999000" + i + j);
+                number.setNumberType(NumberType.CELLULAR);
+                number.setContact(contact);
+                entityManager.persist(number);
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void credentialsLookupLoadsNoEntities() {
+        UserCredentials credentials = userRepository.findCredentialsByLogin("user").orElseThrow();
+
+        assertEquals(user.getId(), credentials.getId());
+        assertEquals("hash", credentials.getPassword());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void contactsVersionLookupLoadsNoEntities() {
+        ContactsVersion version = userRepository.findVersionById(user.getId()).orElseThrow();
+
+        assertEquals(user.getId(), version.getId());
+        assertEquals(0, version.getContactsVersion());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void userLookupDoesNotLoadContacts() {
+        User loaded = userRepository.findByLogin("user").orElseThrow();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+        assertFalse(entityManagerFactory.getPersistenceUnitUtil().isLoaded(loaded, "contacts"));
+    }
+
+    @Test
+    void contactListFetchesNumbersInOneQuery() {
+        List<Contact> contacts = contactRepository.findAllWithNumbersByOwnerId(user.getId());
+
+        assertEquals(CONTACTS, contacts.size());
+        contacts.forEach(contact -> assertEquals(2, contact.getNumbers().size()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void contactPageLoadsNumbersAndTagsInOneBatch() {
+        List<Integer> ids = contactRepository.findPageIdsOrderById(user.getId(), 0, PageRequest.of(0, 10));
+        List<Contact> contacts = contactRepository.findAllCachedById(ids);
+
+        assertEquals(10, contacts.size());
+        contacts.forEach(contact -> {
+            assertEquals(2, contact.getNumbers().size());
+            assertEquals(2, contact.getTags().size());
+        });
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void contactTagsLoadInOneQuery() {
+        assertEquals(CONTACTS * 2, contactRepository.findTagsByOwnerId(user.getId()).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void contactTagsStreamInOneQuery() {
+        try (Stream<ContactTag> tags = contactRepository.streamTagsByOwnerId(user.getId())) {
+            assertEquals(CONTACTS * 2, tags.count());
+        }
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void contactRowsStreamInOneQuery() {
+        try (Stream<ContactRow> rows = contactRepository.streamRowsByOwnerId(user.getId())) {
+            assertEquals(CONTACTS * 2, rows.count());
+        }
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
@@ -0,0 +1,61 @@
+package com.mirea.kt.phonebookapp.security;
+
+import com.mirea.kt.phonebookapp.util.exceptions.PasswordEncoderBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedPasswordEncoderTests {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void encodesAndMatchesOnItsOwnThreads() {
+        encoder = new BoundedPasswordEncoder(4, 2, 4);
+
+        String hash = encoder.encode("password");
+
+        assertTrue(encoder.matches("password", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(3, encoder.getHashCount());
+        assertTrue(encoder.getHashNanos() > 0);
+    }
+
+    @Test
+    void upgradesHashesOfAnotherCost() {
+        encoder = new BoundedPasswordEncoder(5, 1, 1);
+
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+        assertFalse(encoder.upgradeEncoding("{noop}password"));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws InterruptedException {
+        encoder = new BoundedPasswordEncoder(12, 1, 1);
+        String hash = new BCryptPasswordEncoder(4).encode("password");
+
+        // One hash on the only thread, one in the queue
+        CompletableFuture.runAsync(() -> encoder.encode("first"));
+        CompletableFuture.runAsync(() -> encoder.encode("second"));
+        while (encoder.getQueueSize() == 0) {
+            Thread.sleep(1);
+        }
+
+        assertThrows(PasswordEncoderBusyException.class, () -> encoder.matches("password", hash));
+        assertEquals(1, encoder.getRejectedCount());
+    }
+}
@@ -0,0 +1,94 @@
+package com.mirea.kt.phonebookapp.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.mirea.kt.phonebookapp.repositories.RevokedTokenRepository;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class JWTUtilTests {
+
+    private static final String SECRET = "secret";
+
+    private JWTUtil jwtUtil;
+    private RevokedTokens revokedTokens;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        revokedTokens = new RevokedTokens(mock(RevokedTokenRepository.class));
+        jwtUtil = new JWTUtil(SECRET, 100, 15, 30, revokedTokens);
+        registry = new SimpleMeterRegistry();
+        jwtUtil.bindTo(registry);
+    }
+
+    @Test
+    void reusesVerifiedAccessToken() {
+        String token = jwtUtil.generateTokens(1, "user").getAccessToken();
+
+        TokenClaims first = jwtUtil.validateAccessToken(token);
+        TokenClaims second = jwtUtil.validateAccessToken(token);
+
+        assertEquals(1, first.getUserId());
+        assertEquals("user", second.getLogin());
+        assertEquals(first.getTokenId(), second.getTokenId());
+        assertEquals(1, verifications());
+    }
+
+    @Test
+    void rejectsCachedTokenOnceRevoked() {
+        String token = jwtUtil.generateTokens(1, "user").getAccessToken();
+        TokenClaims claims = jwtUtil.validateAccessToken(token);
+
+        revokedTokens.revoke(claims);
+
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateAccessToken(token));
+        assertEquals(1, verifications());
+    }
+
+    @Test
+    void rejectsCachedTokenOnceExpired() throws InterruptedException {
+        // The exp claim has whole seconds, the token lives for one to two of them
+        long expiresAt = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        String token = JWT.create()
+                .withSubject("User details")
+                .withIssuer("PhonebookApp")
+                .withClaim("type", "access")
+                .withClaim("userId", 1)
+                .withClaim("login", "user")
+                .withJWTId(UUID.randomUUID().toString())
+                .withExpiresAt(new Date(expiresAt))
+                .sign(Algorithm.HMAC256(SECRET));
+
+        jwtUtil.validateAccessToken(token);
+        Thread.sleep(expiresAt - System.currentTimeMillis() + 1000);
+
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateAccessToken(token));
+        // Dropped from the cache, so verified again and rejected by the exp claim
+        assertEquals(2, verifications());
+    }
+
+    @Test
+    void rejectsRefreshTokenAsAccessToken() {
+        String refreshToken = jwtUtil.generateTokens(1, "user").getRefreshToken();
+
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateAccessToken(refreshToken));
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateAccessToken(refreshToken));
+        assertEquals(2, verifications());
+    }
+
+    private long verifications() {
+        FunctionTimer timer = registry.get("phonebook.jwt.verification").functionTimer();
+        return (long) timer.count();
+    }
+}
@@ -0,0 +1,63 @@
+package com.mirea.kt.phonebookapp.security;
+
+import com.mirea.kt.phonebookapp.models.RevokedToken;
+import com.mirea.kt.phonebookapp.repositories.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RevokedTokensTests {
+
+    private RevokedTokenRepository revokedTokenRepository;
+    private RevokedTokens revokedTokens;
+    private TokenClaims claims;
+
+    @BeforeEach
+    void setUp() {
+        revokedTokenRepository = mock(RevokedTokenRepository.class);
+        revokedTokens = new RevokedTokens(revokedTokenRepository);
+        claims = new TokenClaims(1, "user", UUID.randomUUID(), System.currentTimeMillis() + 60_000);
+    }
+
+    @Test
+    void revokesOnceStored() {
+        when(revokedTokenRepository.saveAndFlush(any(RevokedToken.class)))
+                .then(invocation -> invocation.getArgument(0));
+
+        assertTrue(revokedTokens.revoke(claims));
+        assertTrue(revokedTokens.isRevoked(claims.getTokenId()));
+        assertFalse(revokedTokens.revoke(claims));
+    }
+
+    @Test
+    void keepsTokenRevokedOnAnotherInstance() {
+        when(revokedTokenRepository.saveAndFlush(any(RevokedToken.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        assertFalse(revokedTokens.revoke(claims));
+        assertTrue(revokedTokens.isRevoked(claims.getTokenId()));
+    }
+
+    @Test
+    void leavesTokenValidWhenNotStored() {
+        when(revokedTokenRepository.saveAndFlush(any(RevokedToken.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .then(invocation -> invocation.getArgument(0));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> revokedTokens.revoke(claims));
+        assertFalse(revokedTokens.isRevoked(claims.getTokenId()));
+
+        assertTrue(revokedTokens.revoke(claims));
+        assertTrue(revokedTokens.isRevoked(claims.getTokenId()));
+    }
+}
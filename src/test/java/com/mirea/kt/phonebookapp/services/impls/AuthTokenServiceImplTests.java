@@ -0,0 +1,93 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.repositories.RevokedTokenRepository;
+import com.mirea.kt.phonebookapp.security.JWTUtil;
+import com.mirea.kt.phonebookapp.security.RevokedTokens;
+import com.mirea.kt.phonebookapp.security.TokenPair;
+import com.mirea.kt.phonebookapp.util.exceptions.InvalidTokenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "jwt_secret=TEST_SECRET"
+})
+@Import({AuthTokenServiceImpl.class, JWTUtil.class, RevokedTokens.class})
+class AuthTokenServiceImplTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AuthTokenServiceImpl authTokenService;
+
+    @Autowired
+    private JWTUtil jwtUtil;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setLogin("user");
+        user.setPassword("hash");
+        entityManager.persist(user);
+    }
+
+    @Test
+    void refreshTokenIsExchangedOnlyOnce() {
+        TokenPair issued = authTokenService.issueTokens(user.getId(), user.getLogin());
+        TokenPair refreshed = authTokenService.refreshTokens(issued.getRefreshToken());
+
+        assertEquals("user", jwtUtil.validateAccessToken(refreshed.getAccessToken()).getLogin());
+        assertThrows(InvalidTokenException.class, () -> authTokenService.refreshTokens(issued.getRefreshToken()));
+        authTokenService.refreshTokens(refreshed.getRefreshToken());
+    }
+
+    @Test
+    void tokensAreNotInterchangeable() {
+        TokenPair issued = authTokenService.issueTokens(user.getId(), user.getLogin());
+
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateAccessToken(issued.getRefreshToken()));
+        assertThrows(InvalidTokenException.class, () -> authTokenService.refreshTokens(issued.getAccessToken()));
+    }
+
+    @Test
+    void logoutRevokesBothTokensAcrossRestarts() {
+        TokenPair issued = authTokenService.issueTokens(user.getId(), user.getLogin());
+        jwtUtil.validateAccessToken(issued.getAccessToken());
+
+        authTokenService.revokeTokens(issued.getRefreshToken(), issued.getAccessToken());
+
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateAccessToken(issued.getAccessToken()));
+        assertThrows(InvalidTokenException.class, () -> authTokenService.refreshTokens(issued.getRefreshToken()));
+
+        RevokedTokens reloaded = new RevokedTokens(revokedTokenRepository);
+        reloaded.afterSingletonsInstantiated();
+        assertEquals(2, reloaded.size());
+        assertTrue(reloaded.isRevoked(UUID.fromString(JWT.decode(issued.getRefreshToken()).getId())));
+    }
+
+    @Test
+    void deletedUsersCanNotRefresh() {
+        TokenPair issued = authTokenService.issueTokens(user.getId() + 1, "ghost");
+
+        assertThrows(InvalidTokenException.class, () -> authTokenService.refreshTokens(issued.getRefreshToken()));
+    }
+}
@@ -0,0 +1,73 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.mirea.kt.phonebookapp.util.exceptions.AvatarTooLargeException;
+import com.mirea.kt.phonebookapp.util.exceptions.InvalidParamsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvatarStorageServiceImplTests {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R'};
+
+    @TempDir
+    Path root;
+
+    private AvatarStorageServiceImpl storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new AvatarStorageServiceImpl(root.toString(), 64);
+    }
+
+    @Test
+    void storesUnderContentHashOnce() throws IOException {
+        String name = storage.store(new ByteArrayInputStream(PNG));
+
+        assertTrue(name.matches("[0-9a-f]{64}\\.png"));
+        assertEquals(name, storage.store(new ByteArrayInputStream(PNG)));
+        assertArrayEquals(PNG, Files.readAllBytes(storage.find(name)));
+        assertEquals(1, countFiles());
+
+        byte[] other = Arrays.copyOf(PNG, PNG.length + 1);
+        assertNotEquals(name, storage.store(new ByteArrayInputStream(other)));
+        assertEquals(2, countFiles());
+    }
+
+    @Test
+    void rejectsOtherContentAndLargeImages() throws IOException {
+        assertThrows(InvalidParamsException.class, () -> storage.store(new ByteArrayInputStream("<svg/>".getBytes())));
+        assertThrows(AvatarTooLargeException.class, () -> storage.store(new ByteArrayInputStream(Arrays.copyOf(PNG, 65))));
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void findsOnlyWellFormedStoredNames() throws IOException {
+        String name = storage.store(new ByteArrayInputStream(PNG));
+
+        assertNull(storage.find(name.replace(".png", ".jpg")));
+        assertNull(storage.find(name.replace(".png", ".exe")));
+        assertNull(storage.find("../" + name));
+        assertNull(storage.find(name.substring(0, 2)));
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvatarThumbnailServiceImplTests {
+
+    private static final byte[] BROKEN_PNG =
+            {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R'};
+
+    @TempDir
+    Path root;
+
+    private AvatarStorageServiceImpl storage;
+    private AvatarThumbnailServiceImpl thumbnails;
+
+    @BeforeEach
+    void setUp() {
+        storage = new AvatarStorageServiceImpl(root.resolve("avatars").toString(), 1 << 20);
+        thumbnails = new AvatarThumbnailServiceImpl(storage, root.resolve("thumbnails").toString(),
+                new int[]{64, 256}, 40_000_000, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnails.shutdown();
+    }
+
+    @Test
+    void generatesSquareThumbnailsWithoutUpscaling() throws Exception {
+        String name = storage.store(new ByteArrayInputStream(png(300, 200)));
+        thumbnails.requestThumbnails(name);
+
+        BufferedImage small = ImageIO.read(awaitThumbnail(name, 64).toFile());
+        assertEquals(64, small.getWidth());
+        assertEquals(64, small.getHeight());
+
+        BufferedImage large = ImageIO.read(awaitThumbnail(name, 256).toFile());
+        assertEquals(200, large.getWidth());
+        assertEquals(200, large.getHeight());
+    }
+
+    @Test
+    void missingThumbnailsAreRequestedOnce() throws Exception {
+        String name = storage.store(new ByteArrayInputStream(png(100, 100)));
+
+        assertNull(thumbnails.findThumbnail(name, 64));
+        thumbnails.requestThumbnails(name);
+        awaitThumbnail(name, 64);
+        awaitThumbnail(name, 256);
+        thumbnails.requestThumbnails(name);
+
+        assertEquals(1, generatedCount());
+    }
+
+    @Test
+    void unreadableImagesGetNoThumbnails() throws Exception {
+        String name = storage.store(new ByteArrayInputStream(BROKEN_PNG));
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(thumbnails.findThumbnail(name, 64));
+            Thread.sleep(50);
+        }
+
+        assertEquals(0, generatedCount());
+    }
+
+    @Test
+    void onlyConfiguredSizesAreSupported() {
+        assertTrue(thumbnails.isSupportedSize(64));
+        assertTrue(thumbnails.isSupportedSize(256));
+        assertFalse(thumbnails.isSupportedSize(128));
+    }
+
+    private Path awaitThumbnail(String name, int size) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            Path thumbnail = thumbnails.findThumbnail(name, size);
+            if (thumbnail != null) {
+                return thumbnail;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Thumbnail " + size + " of " + name + " was not generated");
+    }
+
+    private double generatedCount() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        thumbnails.bindTo(registry);
+        return registry.get("phonebook.avatar.thumbnails.generated").functionCounter().count();
+    }
+
+    static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8);
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,110 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.mirea.kt.phonebookapp.events.ContactChangedEvent;
+import com.mirea.kt.phonebookapp.events.ContactSnapshot;
+import com.mirea.kt.phonebookapp.repositories.ContactRepository;
+import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactName;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContactSearchServiceImplTests {
+
+    private static final int USER_ID = 1;
+
+    private ContactRepository contactRepository;
+    private UserRepository userRepository;
+    private ContactSearchServiceImpl searchService;
+
+    @BeforeEach
+    void setUp() {
+        contactRepository = mock(ContactRepository.class);
+        when(contactRepository.findNamesByOwnerId(USER_ID)).thenReturn(List.of(
+                name(1, "Вася Пупкин"),
+                name(2, "Vasilisa"),
+                name(3, "Петя"),
+                name(4, "vasya")));
+
+        userRepository = mock(UserRepository.class);
+        searchService = new ContactSearchServiceImpl(contactRepository, userRepository, 1 << 20, 30);
+    }
+
+    @Test
+    void matchesPrefixAcrossCaseAndScript() {
+        assertEquals(List.of(2, 4, 1), searchService.searchByNamePrefix(USER_ID, "VAS", 10));
+        assertEquals(List.of(4, 1), searchService.searchByNamePrefix(USER_ID, "вася", 10));
+        assertEquals(List.of(1), searchService.searchByNamePrefix(USER_ID, "vasya  pup", 10));
+        assertEquals(List.of(2), searchService.searchByNamePrefix(USER_ID, "vas", 1));
+        assertEquals(List.of(), searchService.searchByNamePrefix(USER_ID, "kolya", 10));
+
+        verify(contactRepository, times(1)).findNamesByOwnerId(USER_ID);
+        assertTrue(searchService.estimatedIndexSize(USER_ID) > 0);
+    }
+
+    @Test
+    void followsContactChanges() {
+        searchService.searchByNamePrefix(USER_ID, "", 10);
+
+        searchService.onContactChanged(ContactChangedEvent.created(USER_ID, 1, snapshot(5, "Коля")));
+        searchService.onContactChanged(ContactChangedEvent.updated(USER_ID, 2, snapshot(3, "Петя"),
+                snapshot(3, "Kolyan")));
+        searchService.onContactChanged(ContactChangedEvent.deleted(USER_ID, 3, snapshot(4, "vasya")));
+
+        assertEquals(List.of(5, 3), searchService.searchByNamePrefix(USER_ID, "kol", 10));
+        assertEquals(List.of(), searchService.searchByNamePrefix(USER_ID, "pet", 10));
+        assertEquals(List.of(1), searchService.searchByNamePrefix(USER_ID, "vasy", 10));
+        verify(contactRepository, times(1)).findNamesByOwnerId(USER_ID);
+    }
+
+    @Test
+    void doesNotKeepIndexBuiltDuringWrite() {
+        // The write commits between the two version reads, its event comes before the index is cached
+        when(userRepository.findContactsVersionOrZero(USER_ID)).thenReturn(0L, 1L);
+        when(contactRepository.findNamesByOwnerId(USER_ID)).thenAnswer(invocation -> {
+            searchService.onContactChanged(ContactChangedEvent.created(USER_ID, 1, snapshot(5, "Коля")));
+            return List.of(name(1, "Вася Пупкин"));
+        }).thenReturn(List.of(name(1, "Вася Пупкин"), name(5, "Коля")));
+
+        assertEquals(List.of(), searchService.searchByNamePrefix(USER_ID, "kol", 10));
+        assertEquals(List.of(5), searchService.searchByNamePrefix(USER_ID, "kol", 10));
+        verify(contactRepository, times(2)).findNamesByOwnerId(USER_ID);
+    }
+
+    @Test
+    void rebuildsAfterMissedChange() {
+        searchService.searchByNamePrefix(USER_ID, "", 10);
+
+        searchService.onContactChanged(ContactChangedEvent.created(USER_ID, 2, snapshot(5, "Коля")));
+        searchService.searchByNamePrefix(USER_ID, "", 10);
+
+        verify(contactRepository, times(2)).findNamesByOwnerId(USER_ID);
+    }
+
+    private static ContactSnapshot snapshot(int id, String name) {
+        return new ContactSnapshot(id, name, new long[0], Set.of());
+    }
+
+    private static ContactName name(int id, String name) {
+        return new ContactName() {
+            @Override
+            public int getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+}
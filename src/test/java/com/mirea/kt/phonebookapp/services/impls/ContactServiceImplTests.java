@@ -0,0 +1,173 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(ContactServiceImpl.class)
+class ContactServiceImplTests {
+
+    private static final int CONTACTS = 200;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactServiceImpl contactService;
+
+    private Statistics statistics;
+    private User user;
+    private User stranger;
+    private Contact contact;
+
+    @BeforeEach
+    void setUp() {
+        user = user("user");
+        stranger = user("stranger");
+
+        for (int i = 0; i < CONTACTS; i++) {
+            Contact saved = new Contact();
+            saved.setName("Contact " + i);
+            saved.setOwner(user);
+            saved.setTags(new HashSet<>(Set.of("work")));
+            saved.setNumbers(new ArrayList<>(List.of(
+                    number("8999000" + i, NumberType.CELLULAR, saved),
+                    number("8495000" + i, NumberType.HOME, saved))));
+            entityManager.persist(saved);
+            contact = saved;
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void updateLoadsOnlyTheContactAndDiffsNumbers() {
+        int keptId = contact.getNumbers().get(0).getId();
+
+        Contact update = new Contact();
+        update.setId(contact.getId());
+        update.setName("Renamed");
+        update.setTags(Set.of("family"));
+        update.setNumbers(List.of(
+                number(contact.getNumbers().get(0).getNumber(), NumberType.CELLULAR, null),
+                number("89991112233", NumberType.WORKER, null)));
+
+        assertTrue(contactService.updateContact(user.getId(), update));
+        entityManager.flush();
+
+        assertEquals(3, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals(1, statistics.getEntityDeleteCount());
+
+        entityManager.clear();
+        Contact updated = entityManager.find(Contact.class, contact.getId());
+        assertEquals("Renamed", updated.getName());
+        assertEquals(Set.of("family"), updated.getTags());
+        assertEquals(2, updated.getNumbers().size());
+        assertTrue(updated.getNumbers().stream().anyMatch(number -> number.getId() == keptId));
+    }
+
+    @Test
+    void writesAreCheckedAgainstOwner() {
+        Contact update = new Contact();
+        update.setId(contact.getId());
+        update.setName("Stolen");
+        update.setNumbers(List.of());
+
+        assertFalse(contactService.updateContact(stranger.getId(), update));
+        assertFalse(contactService.deleteContact(stranger.getId(), contact.getId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals("Contact " + (CONTACTS - 1), entityManager.find(Contact.class, contact.getId()).getName());
+    }
+
+    @Test
+    void deleteLoadsOnlyTheContact() {
+        assertTrue(contactService.deleteContact(user.getId(), contact.getId()));
+        entityManager.flush();
+
+        assertEquals(3, statistics.getEntityLoadCount());
+        assertEquals(3, statistics.getEntityDeleteCount());
+
+        entityManager.clear();
+        assertNull(entityManager.find(Contact.class, contact.getId()));
+        assertNotNull(entityManager.find(User.class, user.getId()));
+    }
+
+    @Test
+    void everyWriteBumpsContactsVersion() {
+        Contact added = new Contact();
+        added.setName("Added");
+        added.setNumbers(new ArrayList<>());
+        contactService.addContact(user.getId(), added);
+        assertEquals(1, contactsVersion(user));
+
+        Contact update = new Contact();
+        update.setId(added.getId());
+        update.setName("Updated");
+        update.setNumbers(List.of());
+        contactService.updateContact(user.getId(), update);
+        assertEquals(2, contactsVersion(user));
+
+        contactService.deleteContact(user.getId(), added.getId());
+        contactService.deleteContact(stranger.getId(), contact.getId());
+        assertEquals(3, contactsVersion(user));
+        assertEquals(0, contactsVersion(stranger));
+    }
+
+    private long contactsVersion(User user) {
+        return userRepository.findVersionById(user.getId()).orElseThrow().getContactsVersion();
+    }
+
+    private User user(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setPassword("hash");
+        return entityManager.persist(user);
+    }
+
+    private static PhoneNumber number(String value, NumberType numberType, Contact contact) {
+        PhoneNumber number = new PhoneNumber();
+        number.setNumber(value);
+        number.setNumberType(numberType);
+        number.setContact(contact);
+        return number;
+    }
+}
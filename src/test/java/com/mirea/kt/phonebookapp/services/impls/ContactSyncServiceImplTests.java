@@ -0,0 +1,140 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.ContactChanges;
+import com.mirea.kt.phonebookapp.models.ContactTombstone;
+import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import com.mirea.kt.phonebookapp.util.ChangeToken;
+import com.mirea.kt.phonebookapp.util.exceptions.ChangeTokenExpiredException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ContactServiceImpl.class, ContactSyncServiceImpl.class})
+class ContactSyncServiceImplTests {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ContactServiceImpl contactService;
+
+    @Autowired
+    private ContactSyncServiceImpl syncService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setLogin("user" + System.nanoTime());
+        user.setPassword("hash");
+        entityManager.persist(user);
+    }
+
+    @Test
+    void returnsOnlyChangesSinceToken() {
+        Contact kept = add("Kept");
+        Contact updated = add("Updated");
+        Contact deleted = add("Deleted");
+
+        ContactChanges first = syncService.getChangesSince(user.getId(), null);
+        assertEquals(3, first.getChanged().size());
+        assertEquals(3, first.getToken().getVersion());
+
+        Contact update = contact("Updated again");
+        update.setId(updated.getId());
+        contactService.updateContact(user.getId(), update);
+        contactService.deleteContact(user.getId(), deleted.getId());
+        Contact added = add("Added");
+        entityManager.flush();
+        entityManager.clear();
+
+        ContactChanges second = syncService.getChangesSince(user.getId(), first.getToken());
+        assertEquals(Set.of(updated.getId(), added.getId()), ids(second.getChanged()));
+        assertEquals(List.of(deleted.getId()), second.getDeletedIds());
+        assertEquals(6, second.getToken().getVersion());
+
+        ContactChanges third = syncService.getChangesSince(user.getId(), second.getToken());
+        assertEquals(Set.of(), ids(third.getChanged()));
+        assertEquals(List.of(), third.getDeletedIds());
+        assertEquals(Set.of(kept.getId(), updated.getId(), added.getId()),
+                ids(syncService.getChangesSince(user.getId(), null).getChanged()));
+    }
+
+    @Test
+    void loadsTagsOutsideCallersTransaction() {
+        Contact tagged = contact("Tagged");
+        tagged.setTags(new HashSet<>(Set.of("work")));
+        PhoneNumber number = new PhoneNumber();
+        number.setNumber("89990001122");
+        number.setNumberType(NumberType.CELLULAR);
+        tagged.getNumbers().add(number);
+        contactService.addContact(user.getId(), tagged);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        ContactChanges changes = syncService.getChangesSince(user.getId(), null);
+
+        assertEquals(Set.of("work"), changes.getChanged().get(0).getTags());
+        assertEquals(1, changes.getChanged().get(0).getNumbers().size());
+    }
+
+    @Test
+    void rejectsTokensOlderThanRetention() {
+        assertThrows(ChangeTokenExpiredException.class,
+                () -> syncService.getChangesSince(user.getId(), new ChangeToken(0, 0)));
+    }
+
+    @Test
+    void prunesOldTombstones() {
+        contactService.deleteContact(user.getId(), add("Deleted").getId());
+
+        ContactTombstone old = new ContactTombstone();
+        old.setUserId(user.getId());
+        old.setContactId(-1);
+        old.setDeleteSeq(0);
+        old.setDeletedAt(LocalDateTime.now().minusDays(31));
+        entityManager.persist(old);
+        entityManager.flush();
+
+        assertEquals(1, syncService.pruneTombstones());
+    }
+
+    private Contact add(String name) {
+        Contact contact = contact(name);
+        contactService.addContact(user.getId(), contact);
+        return contact;
+    }
+
+    private static Contact contact(String name) {
+        Contact contact = new Contact();
+        contact.setName(name);
+        contact.setNumbers(new ArrayList<>());
+        return contact;
+    }
+
+    private static Set<Integer> ids(List<Contact> contacts) {
+        Set<Integer> ids = new HashSet<>();
+        for (Contact contact : contacts) {
+            ids.add(contact.getId());
+        }
+        return ids;
+    }
+}
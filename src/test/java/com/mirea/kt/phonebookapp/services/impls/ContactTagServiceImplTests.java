@@ -0,0 +1,119 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.mirea.kt.phonebookapp.events.ContactChangedEvent;
+import com.mirea.kt.phonebookapp.events.ContactSnapshot;
+import com.mirea.kt.phonebookapp.repositories.ContactRepository;
+import com.mirea.kt.phonebookapp.repositories.UserRepository;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactTag;
+import com.mirea.kt.phonebookapp.util.TagExpression;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContactTagServiceImplTests {
+
+    private static final int USER_ID = 1;
+
+    private ContactRepository contactRepository;
+    private UserRepository userRepository;
+    private ContactTagServiceImpl tagService;
+
+    @BeforeEach
+    void setUp() {
+        contactRepository = mock(ContactRepository.class);
+        when(contactRepository.findTagsByOwnerId(USER_ID)).thenReturn(List.of(
+                tag(USER_ID, 1, "Work"),
+                tag(USER_ID, 2, "work"),
+                tag(USER_ID, 2, "Family"),
+                tag(USER_ID, 3, "family")));
+
+        userRepository = mock(UserRepository.class);
+        tagService = new ContactTagServiceImpl(contactRepository, userRepository, 1 << 20, 30);
+    }
+
+    @Test
+    void filtersWithPaging() {
+        assertEquals(List.of(1, 2), filter("work", null, 10));
+        assertEquals(List.of(2), filter("work & family", null, 10));
+        assertEquals(List.of(1, 2), filter("work | family", null, 2));
+        assertEquals(List.of(3), filter("work | family", 2, 2));
+
+        verify(contactRepository, times(1)).findTagsByOwnerId(USER_ID);
+    }
+
+    @Test
+    void followsContactChanges() {
+        filter("work", null, 10);
+
+        tagService.onContactChanged(ContactChangedEvent.created(USER_ID, 1, snapshot(4, "work", "family")));
+        tagService.onContactChanged(ContactChangedEvent.updated(USER_ID, 2, snapshot(1, "work"), snapshot(1, "friends")));
+        tagService.onContactChanged(ContactChangedEvent.deleted(USER_ID, 3, snapshot(2, "work", "family")));
+
+        assertEquals(List.of(4), filter("work", null, 10));
+        assertEquals(List.of(3, 4), filter("family", null, 10));
+        assertEquals(List.of(1), filter("friends", null, 10));
+        verify(contactRepository, times(1)).findTagsByOwnerId(USER_ID);
+    }
+
+    @Test
+    void keepsContactWhenOneOfTwoCaseVariantsIsRemoved() {
+        when(contactRepository.findTagsByOwnerId(USER_ID)).thenReturn(List.of(
+                tag(USER_ID, 1, "Work"),
+                tag(USER_ID, 1, "work")));
+        filter("work", null, 10);
+
+        tagService.onContactChanged(ContactChangedEvent.updated(USER_ID, 1,
+                snapshot(1, "Work", "work"), snapshot(1, "work")));
+
+        assertEquals(List.of(1), filter("work", null, 10));
+    }
+
+    @Test
+    void rebuildsAfterWriteDuringBuild() {
+        // The write commits between the two version reads, its event comes before the index is cached
+        when(userRepository.findContactsVersionOrZero(USER_ID)).thenReturn(0L, 1L);
+        when(contactRepository.findTagsByOwnerId(USER_ID)).thenAnswer(invocation -> {
+            tagService.onContactChanged(ContactChangedEvent.created(USER_ID, 1, snapshot(4, "work")));
+            return List.of(tag(USER_ID, 1, "work"));
+        }).thenReturn(List.of(tag(USER_ID, 1, "work"), tag(USER_ID, 4, "work")));
+
+        assertEquals(List.of(1), filter("work", null, 10));
+        assertEquals(List.of(1, 4), filter("work", null, 10));
+        verify(contactRepository, times(2)).findTagsByOwnerId(USER_ID);
+    }
+
+    private List<Integer> filter(String expression, Integer after, int limit) {
+        return tagService.filterByTags(USER_ID, TagExpression.parse(expression), after, limit);
+    }
+
+    private static ContactSnapshot snapshot(int id, String... tags) {
+        return new ContactSnapshot(id, "Contact " + id, new long[0], Set.of(tags));
+    }
+
+    private static ContactTag tag(int ownerId, int contactId, String tag) {
+        return new ContactTag() {
+            @Override
+            public int getOwnerId() {
+                return ownerId;
+            }
+
+            @Override
+            public int getContactId() {
+                return contactId;
+            }
+
+            @Override
+            public String getTag() {
+                return tag;
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.mirea.kt.phonebookapp.services.impls;
+
+import com.mirea.kt.phonebookapp.config.PasswordEncoderConfig;
+import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.util.exceptions.UserNotCreatedException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "password_bcrypt_strength=4"
+})
+@Import({UserServiceImpl.class, PasswordEncoderConfig.class})
+class UserServiceImplTests {
+
+    @Autowired
+    private UserServiceImpl userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void freeLoginsAreAnsweredWithoutQueriesOnceFilterIsLoaded() {
+        userService.addUser(user("taken"));
+
+        assertTrue(userService.isLoginTaken("taken"));
+        assertFalse(userService.isLoginTaken("free"));
+
+        userService.loadLoginFilter();
+        userService.addUser(user("added"));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertFalse(userService.isLoginTaken("free"));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        assertTrue(userService.isLoginTaken("taken"));
+        assertTrue(userService.isLoginTaken("added"));
+    }
+
+    @Test
+    void duplicateLoginIsRejectedByUniqueIndex() {
+        userService.addUser(user("taken"));
+
+        assertThrows(UserNotCreatedException.class, () -> userService.addUser(user("taken")));
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setPassword("password");
+        return user;
+    }
+}
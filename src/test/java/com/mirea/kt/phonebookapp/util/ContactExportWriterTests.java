@@ -0,0 +1,93 @@
+package com.mirea.kt.phonebookapp.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+import com.mirea.kt.phonebookapp.util.mappers.ContactMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ContactExportWriterTests {
+
+    private final List<ContactRow> rows = List.of(
+            row(1, "Ivanov, Ivan", "ivan.png", "89991234567", NumberType.CELLULAR),
+            row(1, "Ivanov, Ivan", "ivan.png", "84951234567", NumberType.WORKER),
+            row(2, "Petya", null, null, null));
+
+    @Test
+    void csvExportCanBeImportedBack() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ContactExportWriter writer = new ContactCsvExportWriter(outputStream, true)) {
+            rows.forEach(writer);
+        }
+
+        ContactImportReader reader = new ContactImportReader(
+                new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray())),
+                ContactImportReader.TEXT_CSV, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), new ContactMapper());
+
+        List<Contact> contacts = new ArrayList<>();
+        reader.forEachRemaining(contacts::add);
+
+        assertEquals(0, reader.getFailed());
+        assertEquals(2, contacts.size());
+        assertEquals("Ivanov, Ivan", contacts.get(0).getName());
+        assertEquals("ivan.png", contacts.get(0).getImageName());
+        assertEquals("84951234567", contacts.get(0).getNumbers().get(1).getNumber());
+        assertEquals(NumberType.WORKER, contacts.get(0).getNumbers().get(1).getNumberType());
+        assertEquals(0, contacts.get(1).getNumbers().size());
+    }
+
+    @Test
+    void vCardExport() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ContactExportWriter writer = new ContactVCardExportWriter(outputStream, false)) {
+            rows.forEach(writer);
+        }
+
+        assertEquals("BEGIN:VCARD\r\nVERSION:3.0\r\nFN:Ivanov\\, Ivan\r\nN:Ivanov\\, Ivan;;;;\r\n" +
+                        "TEL;TYPE=CELL:89991234567\r\nTEL;TYPE=WORK:84951234567\r\nEND:VCARD\r\n" +
+                        "BEGIN:VCARD\r\nVERSION:3.0\r\nFN:Petya\r\nN:Petya;;;;\r\nEND:VCARD\r\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    private static ContactRow row(int id, String name, String imageName, String number, NumberType numberType) {
+        return new ContactRow() {
+            @Override
+            public int getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getImageName() {
+                return imageName;
+            }
+
+            @Override
+            public String getNumber() {
+                return number;
+            }
+
+            @Override
+            public NumberType getNumberType() {
+                return numberType;
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package com.mirea.kt.phonebookapp.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import com.mirea.kt.phonebookapp.util.mappers.ContactMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ContactImportReaderTests {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final ContactMapper contactMapper = new ContactMapper();
+
+    @Test
+    void readsJsonArrayAndReportsBadElements() throws IOException {
+        String body = "[" +
+                "{\"name\":\"Vasya\",\"imageName\":null,\"numbers\":[{\"number\":\"89991234567\",\"numberType\":\"HOME\"}]}," +
+                "{\"name\":\"V\",\"numbers\":[]}," +
+                "{\"name\":\"Petya\",\"numbers\":[{\"number\":\"89991234567\",\"numberType\":\"MOBILE\"}]}," +
+                "{\"name\":\"Masha\",\"numbers\":[]}" +
+                "]";
+
+        ContactImportReader reader = reader(body, MediaType.APPLICATION_JSON);
+        List<Contact> contacts = readAll(reader);
+
+        assertEquals(List.of("Vasya", "Masha"), names(contacts));
+        assertEquals(NumberType.HOME, contacts.get(0).getNumbers().get(0).getNumberType());
+        assertEquals(2, reader.getFailed());
+        assertEquals(2, reader.getErrors().get(0).getRow());
+        assertEquals(3, reader.getErrors().get(1).getRow());
+    }
+
+    @Test
+    void readsNdjsonLineByLine() throws IOException {
+        String body = "{\"name\":\"Vasya\",\"numbers\":[]}\n" +
+                "not json\n" +
+                "\n" +
+                "{\"name\":\"Petya\",\"numbers\":[]}\n";
+
+        ContactImportReader reader = reader(body, MediaType.APPLICATION_NDJSON);
+
+        assertEquals(List.of("Vasya", "Petya"), names(readAll(reader)));
+        assertEquals(1, reader.getFailed());
+        assertEquals(2, reader.getErrors().get(0).getRow());
+    }
+
+    @Test
+    void readsCsvWithHeader() throws IOException {
+        String body = "name,imageName,numbers\n" +
+                "\"Ivanov, Ivan\",ivan.png,89991234567:CELLULAR;84951234567:HOME\n" +
+                "Petya,,\n" +
+                "broken\n";
+
+        ContactImportReader reader = reader(body, ContactImportReader.TEXT_CSV);
+        List<Contact> contacts = readAll(reader);
+
+        assertEquals(List.of("Ivanov, Ivan", "Petya"), names(contacts));
+        assertEquals(2, contacts.get(0).getNumbers().size());
+        assertEquals(0, contacts.get(1).getNumbers().size());
+        assertEquals(1, reader.getFailed());
+        assertEquals(4, reader.getErrors().get(0).getRow());
+    }
+
+    private ContactImportReader reader(String body, MediaType mediaType) throws IOException {
+        return new ContactImportReader(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), mediaType,
+                objectMapper, validator, contactMapper);
+    }
+
+    private static List<Contact> readAll(ContactImportReader reader) {
+        List<Contact> contacts = new ArrayList<>();
+        reader.forEachRemaining(contacts::add);
+        return contacts;
+    }
+
+    private static List<String> names(List<Contact> contacts) {
+        List<String> names = new ArrayList<>();
+        for (Contact contact : contacts) {
+            names.add(contact.getName());
+        }
+        return names;
+    }
+}
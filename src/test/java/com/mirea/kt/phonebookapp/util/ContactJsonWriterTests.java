@@ -0,0 +1,128 @@
+package com.mirea.kt.phonebookapp.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mirea.kt.phonebookapp.dto.ContactDTO;
+import com.mirea.kt.phonebookapp.dto.PhoneNumberDTO;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactRow;
+import com.mirea.kt.phonebookapp.repositories.projections.ContactTag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ContactJsonWriterTests {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void writesSameJsonAsContactMap() throws IOException {
+        List<ContactRow> rows = List.of(
+                row(1, "Vasya", "vasya.png", "89991234567", NumberType.CELLULAR),
+                row(1, "Vasya", "vasya.png", "84951234567", NumberType.HOME),
+                row(2, "Petya", null, null, null),
+                row(5, "Masha", "none", "89990000000", NumberType.NONE));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ContactJsonWriter writer = new ContactJsonWriter(objectMapper, outputStream)) {
+            writer.addTag(tag(1, "Work"));
+            writer.addTag(tag(1, "Friends"));
+            writer.accept(rows.get(0));
+            writer.accept(rows.get(1));
+            writer.accept(rows.get(2));
+            // Tags of a contact deleted between the two cursors are not given to the next one
+            writer.addTag(tag(4, "Family"));
+            writer.accept(rows.get(3));
+        }
+
+        Map<Integer, ContactDTO> map = new HashMap<>();
+        map.put(1, contact("Vasya", "vasya.png",
+                number("89991234567", NumberType.CELLULAR), number("84951234567", NumberType.HOME)));
+        map.get(1).setTags(new LinkedHashSet<>(List.of("Work", "Friends")));
+        map.put(2, contact("Petya", null));
+        map.put(5, contact("Masha", "none", number("89990000000", NumberType.NONE)));
+
+        assertEquals(objectMapper.writeValueAsString(map), outputStream.toString());
+    }
+
+    @Test
+    void writesEmptyMapWithoutRows() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new ContactJsonWriter(objectMapper, outputStream).close();
+
+        assertEquals(objectMapper.writeValueAsString(new HashMap<>()), outputStream.toString());
+    }
+
+    private static ContactRow row(int id, String name, String imageName, String number, NumberType numberType) {
+        return new ContactRow() {
+            @Override
+            public int getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getImageName() {
+                return imageName;
+            }
+
+            @Override
+            public String getNumber() {
+                return number;
+            }
+
+            @Override
+            public NumberType getNumberType() {
+                return numberType;
+            }
+        };
+    }
+
+    private static ContactTag tag(int contactId, String tag) {
+        return new ContactTag() {
+            @Override
+            public int getOwnerId() {
+                return 1;
+            }
+
+            @Override
+            public int getContactId() {
+                return contactId;
+            }
+
+            @Override
+            public String getTag() {
+                return tag;
+            }
+        };
+    }
+
+    private static ContactDTO contact(String name, String imageName, PhoneNumberDTO... numbers) {
+        ContactDTO contact = new ContactDTO();
+        contact.setName(name);
+        contact.setImageName(imageName);
+        contact.setNumbers(new ArrayList<>(List.of(numbers)));
+        contact.setTags(Set.of());
+        return contact;
+    }
+
+    private static PhoneNumberDTO number(String value, NumberType numberType) {
+        PhoneNumberDTO number = new PhoneNumberDTO();
+        number.setNumber(value);
+        number.setNumberType(numberType);
+        return number;
+    }
+}
@@ -0,0 +1,37 @@
+package com.mirea.kt.phonebookapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongIntHashMapTests {
+
+    @Test
+    void behavesLikeHashMap() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = 79_990_000_000L + random.nextInt(2000);
+            int value = random.nextInt(1_000_000);
+
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed == null ? LongIntHashMap.NO_VALUE : removed, map.remove(key));
+            } else {
+                Integer previous = expected.put(key, value);
+                assertEquals(previous == null ? LongIntHashMap.NO_VALUE : previous, map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 79_990_000_000L; key < 79_990_002_000L; key++) {
+            assertEquals(expected.getOrDefault(key, LongIntHashMap.NO_VALUE), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.mirea.kt.phonebookapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PhoneNumbersTests {
+
+    @Test
+    void normalizesFormattingAndRussianPrefixes() {
+        assertEquals(79991234567L, PhoneNumbers.normalize("8 (999) 123-45-67"));
+        assertEquals(79991234567L, PhoneNumbers.normalize("+7 999 123 45 67"));
+        assertEquals(79991234567L, PhoneNumbers.normalize("9991234567"));
+        assertEquals(441234567890L, PhoneNumbers.normalize("+44 1234 567890"));
+    }
+
+    @Test
+    void rejectsNumbersWithoutDigitsOrTooLong() {
+        assertEquals(PhoneNumbers.NONE, PhoneNumbers.normalize("no digits"));
+        assertEquals(PhoneNumbers.NONE, PhoneNumbers.normalize("1234567890123456789"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.mirea.kt.phonebookapp.util;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TagExpressionTests {
+
+    private final Map<String, RoaringBitmap> tags = Map.of(
+            "work", RoaringBitmap.bitmapOf(1, 2, 3, 100_000),
+            "family", RoaringBitmap.bitmapOf(3, 4),
+            "close friends", RoaringBitmap.bitmapOf(2, 5, 100_000));
+
+    @Test
+    void evaluatesAndBeforeOr() {
+        assertArrayEquals(new int[]{2, 3, 5, 100_000}, evaluate("work & family | close friends"));
+        assertArrayEquals(new int[]{2, 3, 100_000}, evaluate("WORK & (Family | close friends)"));
+        assertArrayEquals(new int[]{1, 2, 3, 4, 100_000}, evaluate(" work|family "));
+        assertArrayEquals(new int[]{}, evaluate("work & unknown"));
+    }
+
+    @Test
+    void leavesSourceBitmapsUntouched() {
+        TagExpression.parse("work").evaluate(tags::get).add(42);
+
+        assertArrayEquals(new int[]{1, 2, 3, 100_000}, tags.get("work").toArray());
+    }
+
+    @Test
+    void rejectsMalformedExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> TagExpression.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> TagExpression.parse("work &"));
+        assertThrows(IllegalArgumentException.class, () -> TagExpression.parse("(work | family"));
+        assertThrows(IllegalArgumentException.class, () -> TagExpression.parse("work) & family"));
+        assertThrows(IllegalArgumentException.class, () -> TagExpression.parse("work || family"));
+    }
+
+    private int[] evaluate(String expression) {
+        return TagExpression.parse(expression).evaluate(tags::get).toArray();
+    }
+}
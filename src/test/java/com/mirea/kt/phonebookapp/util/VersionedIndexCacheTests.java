@@ -0,0 +1,84 @@
+package com.mirea.kt.phonebookapp.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class VersionedIndexCacheTests {
+
+    private static final int USER_ID = 1;
+
+    private final AtomicLong version = new AtomicLong(5);
+    private final AtomicInteger builds = new AtomicInteger();
+    private VersionedIndexCache<List<String>> cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VersionedIndexCache<>(1 << 20, 30, List::size, userId -> version.get());
+    }
+
+    @Test
+    void keepsIndexBuiltAtStableVersion() {
+        List<String> index = cache.get(USER_ID, this::build);
+
+        assertSame(index, cache.get(USER_ID, this::build));
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void dropsIndexWhenWriteCommitsDuringBuild() {
+        cache.get(USER_ID, userId -> {
+            version.incrementAndGet();
+            // The write's event finds no index yet
+            cache.apply(USER_ID, version.get(), index -> index.add("lost"));
+            return build(userId);
+        });
+
+        assertNull(cache.getIfPresent(USER_ID));
+        cache.get(USER_ID, this::build);
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    void appliesChangesInVersionOrder() {
+        List<String> index = cache.get(USER_ID, this::build);
+
+        cache.apply(USER_ID, 6, changed -> changed.add("a"));
+        cache.apply(USER_ID, 7, changed -> changed.add("b"));
+        // Already in the index
+        cache.apply(USER_ID, 7, changed -> changed.add("b"));
+        cache.apply(USER_ID, 4, changed -> changed.add("old"));
+
+        assertSame(index, cache.getIfPresent(USER_ID));
+        assertEquals(List.of("a", "b"), index);
+    }
+
+    @Test
+    void dropsIndexOnMissingVersion() {
+        cache.get(USER_ID, this::build);
+
+        cache.apply(USER_ID, 7, changed -> changed.add("b"));
+
+        assertNull(cache.getIfPresent(USER_ID));
+    }
+
+    @Test
+    void ignoresChangesOfUsersWithoutIndex() {
+        cache.apply(USER_ID, 6, changed -> changed.add("a"));
+
+        assertEquals(List.of(), cache.get(USER_ID, this::build));
+    }
+
+    private List<String> build(int userId) {
+        builds.incrementAndGet();
+        return new ArrayList<>();
+    }
+}
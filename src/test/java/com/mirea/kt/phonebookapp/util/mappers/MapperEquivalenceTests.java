@@ -0,0 +1,136 @@
+package com.mirea.kt.phonebookapp.util.mappers;
+
+import com.mirea.kt.phonebookapp.dto.AuthenticationDTO;
+import com.mirea.kt.phonebookapp.dto.ContactDTO;
+import com.mirea.kt.phonebookapp.dto.PhoneNumberDTO;
+import com.mirea.kt.phonebookapp.models.Contact;
+import com.mirea.kt.phonebookapp.models.PhoneNumber;
+import com.mirea.kt.phonebookapp.models.User;
+import com.mirea.kt.phonebookapp.models.enums.NumberType;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MapperEquivalenceTests {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final ContactMapper contactMapper = new ContactMapper();
+    private final UserMapper userMapper = new UserMapper();
+
+    @Test
+    void contactDTOToContact() {
+        ContactDTO contactDTO = new ContactDTO();
+        contactDTO.setName("Vasya");
+        contactDTO.setImageName("vasya.png");
+        contactDTO.setNumbers(List.of(
+                numberDTO("89991234567", NumberType.CELLULAR),
+                numberDTO("84951234567", NumberType.HOME)));
+
+        Contact expected = modelMapperContact(contactDTO);
+        Contact actual = contactMapper.toContact(contactDTO);
+
+        assertEquals(expected, actual);
+        assertEquals(expected.getNumbers(), actual.getNumbers());
+        assertEquals(expected.getOwner(), actual.getOwner());
+        for (PhoneNumber number : actual.getNumbers()) {
+            assertNull(number.getContact());
+        }
+    }
+
+    @Test
+    void contactToContactDTO() {
+        Contact contact = new Contact();
+        contact.setId(7);
+        contact.setName("Petya");
+        contact.setImageName(null);
+        contact.setNumbers(new ArrayList<>());
+        contact.getNumbers().add(number(1, "89990000000", NumberType.WORKER, contact));
+        contact.getNumbers().add(number(2, "89990000001", NumberType.NONE, contact));
+
+        assertEquals(modelMapperContactDTO(contact), contactMapper.toContactDTO(contact));
+    }
+
+    @Test
+    void contactWithoutNumbers() {
+        Contact contact = new Contact();
+        contact.setName("Empty");
+        contact.setNumbers(new ArrayList<>());
+
+        assertEquals(modelMapperContactDTO(contact), contactMapper.toContactDTO(contact));
+
+        ContactDTO contactDTO = new ContactDTO();
+        contactDTO.setName("Empty");
+        contactDTO.setNumbers(new ArrayList<>());
+
+        assertEquals(modelMapperContact(contactDTO), contactMapper.toContact(contactDTO));
+    }
+
+    @Test
+    void tagsDifferingInCaseAreKeptOnce() {
+        ContactDTO contactDTO = new ContactDTO();
+        contactDTO.setName("Tagged");
+        contactDTO.setTags(new LinkedHashSet<>(List.of(" Work", "work ", "WORK", "family")));
+
+        assertEquals(Set.of("Work", "family"), contactMapper.toContact(contactDTO).getTags());
+    }
+
+    @Test
+    void authenticationDTOToUser() {
+        AuthenticationDTO authenticationDTO = new AuthenticationDTO();
+        authenticationDTO.setLogin("login");
+        authenticationDTO.setPassword("password");
+
+        User expected = modelMapper.map(authenticationDTO, User.class);
+        User actual = userMapper.toUser(authenticationDTO);
+
+        assertEquals(expected, actual);
+        assertEquals(expected.getContacts(), actual.getContacts());
+    }
+
+    // The conversions ContactController and AuthController performed with ModelMapper before the mappers existed
+
+    private Contact modelMapperContact(ContactDTO contactDTO) {
+        List<PhoneNumber> numbers = new ArrayList<>();
+        for (PhoneNumberDTO number : contactDTO.getNumbers()) {
+            numbers.add(modelMapper.map(number, PhoneNumber.class));
+        }
+
+        Contact contact = modelMapper.map(contactDTO, Contact.class);
+        contact.setNumbers(numbers);
+        return contact;
+    }
+
+    private ContactDTO modelMapperContactDTO(Contact contact) {
+        List<PhoneNumberDTO> numbersDTO = new ArrayList<>();
+        for (PhoneNumber number : contact.getNumbers()) {
+            numbersDTO.add(modelMapper.map(number, PhoneNumberDTO.class));
+        }
+
+        ContactDTO contactDTO = modelMapper.map(contact, ContactDTO.class);
+        contactDTO.setNumbers(numbersDTO);
+        return contactDTO;
+    }
+
+    private static PhoneNumberDTO numberDTO(String number, NumberType numberType) {
+        PhoneNumberDTO numberDTO = new PhoneNumberDTO();
+        numberDTO.setNumber(number);
+        numberDTO.setNumberType(numberType);
+        return numberDTO;
+    }
+
+    private static PhoneNumber number(int id, String value, NumberType numberType, Contact contact) {
+        PhoneNumber number = new PhoneNumber();
+        number.setId(id);
+        number.setNumber(value);
+        number.setNumberType(numberType);
+        number.setContact(contact);
+        return number;
+    }
+}